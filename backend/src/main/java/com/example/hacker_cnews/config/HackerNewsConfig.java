@@ -6,6 +6,10 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class HackerNewsConfig {
     
+    // Hacker News API基础URL，可指向本地模拟器
+    @Value("${hacker-news.api.base-url:https://hacker-news.firebaseio.com/v0}")
+    private String apiBaseUrl;
+    
     @Value("${hacker-news.items.limit}")
     private int itemsLimit;
     
@@ -15,6 +19,159 @@ public class HackerNewsConfig {
     @Value("${hacker-news.poll.interval}")
     private long pollInterval;
     
+    // 是否启用基于/updates.json的增量同步
+    @Value("${hacker-news.sync.incremental:true}")
+    private boolean incrementalSync;
+    
+    // 每隔多少个周期执行一次全量同步，用于兜底修正增量同步遗漏的变更
+    @Value("${hacker-news.sync.full-interval:10}")
+    private int fullSyncInterval;
+    
+    // 历史回填配置
+    @Value("${hacker-news.backfill.enabled:false}")
+    private boolean backfillEnabled;
+    
+    @Value("${hacker-news.backfill.depth:100000}")
+    private long backfillDepth;
+    
+    @Value("${hacker-news.backfill.range-size:10000}")
+    private long backfillRangeSize;
+    
+    @Value("${hacker-news.backfill.parallelism:4}")
+    private int backfillParallelism;
+    
+    @Value("${hacker-news.backfill.items-per-second:20}")
+    private double backfillItemsPerSecond;
+    
+    @Value("${hacker-news.backfill.checkpoint-every:50}")
+    private int backfillCheckpointEvery;
+    
+    // 同一条目的获取结果在多长时间内被并发调用方复用（毫秒）
+    @Value("${hacker-news.item.dedup-ttl-ms:5000}")
+    private long itemDedupTtlMillis;
+    
+    // 条目请求自适应并发限制（AIMD）
+    @Value("${hacker-news.limiter.initial-limit:4}")
+    private int limiterInitialLimit;
+    
+    @Value("${hacker-news.limiter.min-limit:1}")
+    private int limiterMinLimit;
+    
+    @Value("${hacker-news.limiter.max-limit:32}")
+    private int limiterMaxLimit;
+    
+    @Value("${hacker-news.limiter.latency-threshold-ms:3000}")
+    private long limiterLatencyThresholdMillis;
+    
+    @Value("${hacker-news.limiter.backoff-ratio:0.5}")
+    private double limiterBackoffRatio;
+    
+    // 条目请求对冲：超过最近延迟的指定分位数仍未返回时发出第二个请求
+    @Value("${hacker-news.hedge.enabled:true}")
+    private boolean hedgeEnabled;
+    
+    @Value("${hacker-news.hedge.percentile:0.95}")
+    private double hedgePercentile;
+    
+    @Value("${hacker-news.hedge.min-delay-ms:50}")
+    private long hedgeMinDelayMillis;
+    
+    @Value("${hacker-news.hedge.max-delay-ms:10000}")
+    private long hedgeMaxDelayMillis;
+    
+    @Value("${hacker-news.hedge.max-ratio:0.1}")
+    private double hedgeMaxRatio;
+    
+    // 条目请求熔断
+    @Value("${hacker-news.circuit-breaker.enabled:true}")
+    private boolean circuitBreakerEnabled;
+    
+    @Value("${hacker-news.circuit-breaker.failure-rate-threshold:0.5}")
+    private double circuitBreakerFailureRateThreshold;
+    
+    @Value("${hacker-news.circuit-breaker.window-size:50}")
+    private int circuitBreakerWindowSize;
+    
+    @Value("${hacker-news.circuit-breaker.minimum-calls:20}")
+    private int circuitBreakerMinimumCalls;
+    
+    @Value("${hacker-news.circuit-breaker.open-duration-ms:30000}")
+    private long circuitBreakerOpenDurationMillis;
+    
+    @Value("${hacker-news.circuit-breaker.half-open-calls:5}")
+    private int circuitBreakerHalfOpenCalls;
+    
+    // 热门列表推送订阅（text/event-stream）
+    @Value("${hacker-news.stream.enabled:false}")
+    private boolean streamEnabled;
+    
+    @Value("${hacker-news.stream.idle-timeout-ms:90000}")
+    private long streamIdleTimeoutMillis;
+    
+    @Value("${hacker-news.stream.min-backoff-ms:1000}")
+    private long streamMinBackoffMillis;
+    
+    @Value("${hacker-news.stream.max-backoff-ms:60000}")
+    private long streamMaxBackoffMillis;
+    
+    // 按优先级分配条目处理并发：新条目 > 首页靠前条目 > 其余刷新
+    @Value("${hacker-news.priority.top-rank-threshold:30}")
+    private int priorityTopRankThreshold;
+    
+    @Value("${hacker-news.priority.new-share:0.5}")
+    private double priorityNewShare;
+    
+    @Value("${hacker-news.priority.top-rank-share:0.3}")
+    private double priorityTopRankShare;
+    
+    @Value("${hacker-news.priority.refresh-share:0.2}")
+    private double priorityRefreshShare;
+    
+    // 按分数/排名变化速度调度每条新闻的刷新
+    @Value("${hacker-news.refresh.budget-per-minute:120}")
+    private int refreshBudgetPerMinute;
+    
+    @Value("${hacker-news.refresh.min-interval-ms:60000}")
+    private long refreshMinIntervalMillis;
+    
+    @Value("${hacker-news.refresh.max-interval-ms:1800000}")
+    private long refreshMaxIntervalMillis;
+    
+    @Value("${hacker-news.refresh.score-velocity-ref:1.0}")
+    private double refreshScoreVelocityRef;
+    
+    @Value("${hacker-news.refresh.rank-velocity-ref:0.5}")
+    private double refreshRankVelocityRef;
+    
+    // 评论树抓取
+    @Value("${hacker-news.comments.enabled:true}")
+    private boolean commentsEnabled;
+    
+    @Value("${hacker-news.comments.refresh-interval:300000}")
+    private long commentsRefreshInterval;
+    
+    @Value("${hacker-news.comments.top-stories:10}")
+    private int commentsTopStories;
+    
+    @Value("${hacker-news.comments.max-depth:10}")
+    private int commentsMaxDepth;
+    
+    @Value("${hacker-news.comments.max-per-story:2000}")
+    private int commentsMaxPerStory;
+    
+    @Value("${hacker-news.comments.per-story-concurrency:4}")
+    private int commentsPerStoryConcurrency;
+    
+    @Value("${hacker-news.comments.global-concurrency:8}")
+    private int commentsGlobalConcurrency;
+    
+    @Value("${hacker-news.comments.save-batch-size:50}")
+    private int commentsSaveBatchSize;
+    
+    public String getApiBaseUrl() {
+        return apiBaseUrl;
+    }
+    
     public int getItemsLimit() {
         return itemsLimit;
     }
@@ -26,4 +183,188 @@ public class HackerNewsConfig {
     public long getPollInterval() {
         return pollInterval;
     }
+    
+    public boolean isIncrementalSync() {
+        return incrementalSync;
+    }
+    
+    public int getFullSyncInterval() {
+        return fullSyncInterval;
+    }
+    
+    public boolean isBackfillEnabled() {
+        return backfillEnabled;
+    }
+    
+    public long getBackfillDepth() {
+        return backfillDepth;
+    }
+    
+    public long getBackfillRangeSize() {
+        return backfillRangeSize;
+    }
+    
+    public int getBackfillParallelism() {
+        return backfillParallelism;
+    }
+    
+    public double getBackfillItemsPerSecond() {
+        return backfillItemsPerSecond;
+    }
+    
+    public int getBackfillCheckpointEvery() {
+        return backfillCheckpointEvery;
+    }
+    
+    public long getItemDedupTtlMillis() {
+        return itemDedupTtlMillis;
+    }
+    
+    public int getLimiterInitialLimit() {
+        return limiterInitialLimit;
+    }
+    
+    public int getLimiterMinLimit() {
+        return limiterMinLimit;
+    }
+    
+    public int getLimiterMaxLimit() {
+        return limiterMaxLimit;
+    }
+    
+    public long getLimiterLatencyThresholdMillis() {
+        return limiterLatencyThresholdMillis;
+    }
+    
+    public double getLimiterBackoffRatio() {
+        return limiterBackoffRatio;
+    }
+    
+    public boolean isHedgeEnabled() {
+        return hedgeEnabled;
+    }
+    
+    public double getHedgePercentile() {
+        return hedgePercentile;
+    }
+    
+    public long getHedgeMinDelayMillis() {
+        return hedgeMinDelayMillis;
+    }
+    
+    public long getHedgeMaxDelayMillis() {
+        return hedgeMaxDelayMillis;
+    }
+    
+    public double getHedgeMaxRatio() {
+        return hedgeMaxRatio;
+    }
+    
+    public boolean isCircuitBreakerEnabled() {
+        return circuitBreakerEnabled;
+    }
+    
+    public double getCircuitBreakerFailureRateThreshold() {
+        return circuitBreakerFailureRateThreshold;
+    }
+    
+    public int getCircuitBreakerWindowSize() {
+        return circuitBreakerWindowSize;
+    }
+    
+    public int getCircuitBreakerMinimumCalls() {
+        return circuitBreakerMinimumCalls;
+    }
+    
+    public long getCircuitBreakerOpenDurationMillis() {
+        return circuitBreakerOpenDurationMillis;
+    }
+    
+    public int getCircuitBreakerHalfOpenCalls() {
+        return circuitBreakerHalfOpenCalls;
+    }
+    
+    public boolean isStreamEnabled() {
+        return streamEnabled;
+    }
+    
+    public long getStreamIdleTimeoutMillis() {
+        return streamIdleTimeoutMillis;
+    }
+    
+    public long getStreamMinBackoffMillis() {
+        return streamMinBackoffMillis;
+    }
+    
+    public long getStreamMaxBackoffMillis() {
+        return streamMaxBackoffMillis;
+    }
+    
+    public int getPriorityTopRankThreshold() {
+        return priorityTopRankThreshold;
+    }
+    
+    public double getPriorityNewShare() {
+        return priorityNewShare;
+    }
+    
+    public double getPriorityTopRankShare() {
+        return priorityTopRankShare;
+    }
+    
+    public double getPriorityRefreshShare() {
+        return priorityRefreshShare;
+    }
+    
+    public boolean isCommentsEnabled() {
+        return commentsEnabled;
+    }
+    
+    public long getCommentsRefreshInterval() {
+        return commentsRefreshInterval;
+    }
+    
+    public int getCommentsTopStories() {
+        return commentsTopStories;
+    }
+    
+    public int getCommentsMaxDepth() {
+        return commentsMaxDepth;
+    }
+    
+    public int getCommentsMaxPerStory() {
+        return commentsMaxPerStory;
+    }
+    
+    public int getCommentsPerStoryConcurrency() {
+        return commentsPerStoryConcurrency;
+    }
+    
+    public int getCommentsGlobalConcurrency() {
+        return commentsGlobalConcurrency;
+    }
+    
+    public int getCommentsSaveBatchSize() {
+        return commentsSaveBatchSize;
+    }
+    
+    public int getRefreshBudgetPerMinute() {
+        return refreshBudgetPerMinute;
+    }
+    
+    public long getRefreshMinIntervalMillis() {
+        return refreshMinIntervalMillis;
+    }
+    
+    public long getRefreshMaxIntervalMillis() {
+        return refreshMaxIntervalMillis;
+    }
+    
+    public double getRefreshScoreVelocityRef() {
+        return refreshScoreVelocityRef;
+    }
+    
+    public double getRefreshRankVelocityRef() {
+        return refreshRankVelocityRef;
+    }
 } 
\ No newline at end of file
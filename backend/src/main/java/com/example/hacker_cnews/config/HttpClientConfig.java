@@ -0,0 +1,187 @@
+package com.example.hacker_cnews.config;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+import com.example.hacker_cnews.util.ConnectionPoolMonitor;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.handler.timeout.WriteTimeoutHandler;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * 上游HTTP客户端配置
+ * Hacker News和DeepL各自使用独立命名的连接池，连接数、等待队列、空闲回收和超时均可配置
+ */
+@Configuration
+public class HttpClientConfig {
+    private static final Logger logger = LoggerFactory.getLogger(HttpClientConfig.class);
+    
+    public static final String HACKER_NEWS_POOL = "hacker-news";
+    public static final String DEEPL_POOL = "deepl";
+    
+    // 写入请求上下文的获取连接开始时间
+    private static final String ACQUIRE_START = "pool.acquire.start";
+    
+    private final ConnectionPoolMonitor poolMonitor;
+    
+    // Hacker News连接池配置
+    @Value("${hacker-news.http.max-connections:50}")
+    private int hnMaxConnections;
+    
+    @Value("${hacker-news.http.pending-acquire-max:500}")
+    private int hnPendingAcquireMax;
+    
+    @Value("${hacker-news.http.pending-acquire-timeout-ms:45000}")
+    private long hnPendingAcquireTimeoutMillis;
+    
+    @Value("${hacker-news.http.max-idle-ms:30000}")
+    private long hnMaxIdleMillis;
+    
+    @Value("${hacker-news.http.connect-timeout-ms:60000}")
+    private int hnConnectTimeoutMillis;
+    
+    @Value("${hacker-news.http.response-timeout-ms:120000}")
+    private long hnResponseTimeoutMillis;
+    
+    @Value("${hacker-news.http.http2:true}")
+    private boolean hnHttp2;
+    
+    @Value("${hacker-news.http.warmup-connections:4}")
+    private int hnWarmupConnections;
+    
+    // DeepL连接池配置
+    @Value("${deepl.http.max-connections:10}")
+    private int deeplMaxConnections;
+    
+    @Value("${deepl.http.pending-acquire-max:200}")
+    private int deeplPendingAcquireMax;
+    
+    @Value("${deepl.http.pending-acquire-timeout-ms:45000}")
+    private long deeplPendingAcquireTimeoutMillis;
+    
+    @Value("${deepl.http.max-idle-ms:30000}")
+    private long deeplMaxIdleMillis;
+    
+    @Value("${deepl.http.connect-timeout-ms:10000}")
+    private int deeplConnectTimeoutMillis;
+    
+    @Value("${deepl.http.response-timeout-ms:60000}")
+    private long deeplResponseTimeoutMillis;
+    
+    @Value("${deepl.http.http2:true}")
+    private boolean deeplHttp2;
+    
+    @Value("${deepl.http.warmup-connections:2}")
+    private int deeplWarmupConnections;
+    
+    @Value("${deepl.translate.url}")
+    private String deeplApiUrl;
+    
+    @Value("${hacker-news.api.base-url:https://hacker-news.firebaseio.com/v0}")
+    private String hnApiBaseUrl;
+    
+    public HttpClientConfig(ConnectionPoolMonitor poolMonitor) {
+        this.poolMonitor = poolMonitor;
+    }
+    
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider hackerNewsConnectionProvider() {
+        return buildConnectionProvider(HACKER_NEWS_POOL, hnMaxConnections, hnPendingAcquireMax,
+                hnPendingAcquireTimeoutMillis, hnMaxIdleMillis);
+    }
+    
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider deeplConnectionProvider() {
+        return buildConnectionProvider(DEEPL_POOL, deeplMaxConnections, deeplPendingAcquireMax,
+                deeplPendingAcquireTimeoutMillis, deeplMaxIdleMillis);
+    }
+    
+    @Bean
+    public HttpClient hackerNewsHttpClient() {
+        return buildHttpClient(hackerNewsConnectionProvider(), HACKER_NEWS_POOL, hnHttp2,
+                hnConnectTimeoutMillis, hnResponseTimeoutMillis);
+    }
+    
+    @Bean
+    public HttpClient deeplHttpClient() {
+        return buildHttpClient(deeplConnectionProvider(), DEEPL_POOL, deeplHttp2,
+                deeplConnectTimeoutMillis, deeplResponseTimeoutMillis);
+    }
+    
+    /**
+     * 启动后预热连接：初始化事件循环和DNS，并预先建立若干连接，避免第一轮更新承担握手开销
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpConnections() {
+        warmUp(hackerNewsHttpClient(), HACKER_NEWS_POOL, hnApiBaseUrl + "/maxitem.json", hnWarmupConnections);
+        warmUp(deeplHttpClient(), DEEPL_POOL, deeplApiUrl, deeplWarmupConnections);
+    }
+    
+    private void warmUp(HttpClient httpClient, String poolName, String url, int connections) {
+        if (connections <= 0) {
+            return;
+        }
+        // 只需要建立连接，响应状态无关紧要
+        httpClient.warmup()
+                .thenMany(Flux.range(0, connections)
+                    .flatMap(i -> httpClient.head()
+                        .uri(url)
+                        .response()
+                        .onErrorResume(e -> Mono.empty())))
+                .then()
+                .subscribe(
+                    v -> { },
+                    e -> logger.warn("连接池 {} 预热失败: {}", poolName, e.getMessage()),
+                    () -> logger.info("连接池 {} 预热完成，预建连接 {} 个", poolName, connections));
+    }
+    
+    private ConnectionProvider buildConnectionProvider(String name, int maxConnections, int pendingAcquireMax,
+            long pendingAcquireTimeoutMillis, long maxIdleMillis) {
+        logger.info("创建连接池 {}: 最大连接数={}, 最大等待数={}, 空闲回收={}ms", 
+                name, maxConnections, pendingAcquireMax, maxIdleMillis);
+        return ConnectionProvider.builder(name)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMax)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMillis))
+                .maxIdleTime(Duration.ofMillis(maxIdleMillis))
+                .evictInBackground(Duration.ofMillis(maxIdleMillis))
+                .metrics(true, () -> poolMonitor)
+                .build();
+    }
+    
+    private HttpClient buildHttpClient(ConnectionProvider provider, String poolName, boolean http2,
+            int connectTimeoutMillis, long responseTimeoutMillis) {
+        long readWriteTimeoutSeconds = Math.max(1, responseTimeoutMillis / 1000);
+        HttpClient httpClient = HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMillis)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMillis))
+                .doOnConnected(conn -> conn
+                    .addHandlerLast(new ReadTimeoutHandler(readWriteTimeoutSeconds, TimeUnit.SECONDS))
+                    .addHandlerLast(new WriteTimeoutHandler(readWriteTimeoutSeconds, TimeUnit.SECONDS)))
+                // 在获取连接开始时记录时间，请求真正发出时计算获取连接的耗时
+                .mapConnect(connection -> connection.contextWrite(ctx -> ctx.put(ACQUIRE_START, System.nanoTime())))
+                .doOnRequest((request, connection) -> request.currentContextView()
+                    .<Long>getOrEmpty(ACQUIRE_START)
+                    .ifPresent(start -> poolMonitor.recordAcquireTime(poolName, System.nanoTime() - start)));
+        
+        if (http2) {
+            // 通过ALPN协商，服务端不支持HTTP/2时回退到HTTP/1.1
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+        return httpClient;
+    }
+} 
\ No newline at end of file
@@ -10,7 +10,7 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -26,11 +26,8 @@ public class IndexController {
     @GetMapping(value = "/", produces = "text/html")
     public String index() {
         try {
-            // 按排名(rank)获取新闻 - 排名越小越靠前
-            List<NewsItem> newsItems = newsItemRepository.findAll(
-                Sort.by(Sort.Direction.ASC, "rank")
-                    .and(Sort.by(Sort.Direction.DESC, "lastUpdated"))
-            );
+            // 按排名(rank)获取新闻 - 排名越小越靠前；只查询热门列表中有排名的记录，多取一些用于去除重复排名
+            List<NewsItem> newsItems = newsItemRepository.findRankedOrderByRank(PageRequest.of(0, 200));
             
             // 过滤有效数据并去除重复排名
             Map<Integer, Boolean> rankProcessed = new HashMap<>();
@@ -53,7 +50,7 @@ public class IndexController {
                 .collect(Collectors.toList());
 
             // 计算最近获取的新闻时间
-            long totalItems = newsItemRepository.count();
+            long totalItems = newsItemRepository.countByBackfilledIsNullOrBackfilledFalse();
             String lastUpdated = "未知";
             if (!newsItems.isEmpty()) {
                 Instant latestTime = null;
@@ -3,16 +3,20 @@ package com.example.hacker_cnews.controller;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.PageRequest;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.hacker_cnews.entity.Comment;
 import com.example.hacker_cnews.entity.NewsItem;
 import com.example.hacker_cnews.repository.NewsItemRepository;
 import com.example.hacker_cnews.service.TranslationService;
 import com.example.hacker_cnews.service.CacheService;
+import com.example.hacker_cnews.service.CommentService;
+import com.example.hacker_cnews.service.TranslationQueueService;
 
 import reactor.core.publisher.Mono;
 import org.slf4j.Logger;
@@ -24,18 +28,23 @@ public class NewsController {
     private final NewsItemRepository repository;
     private final TranslationService translationService;
     private final CacheService cacheService;
+    private final CommentService commentService;
+    private final TranslationQueueService translationQueue;
     private static final Logger logger = LoggerFactory.getLogger(NewsController.class);
     
-    public NewsController(NewsItemRepository repository, TranslationService translationService, CacheService cacheService) {
+    public NewsController(NewsItemRepository repository, TranslationService translationService, CacheService cacheService,
+            CommentService commentService, TranslationQueueService translationQueue) {
         this.repository = repository;
         this.translationService = translationService;
         this.cacheService = cacheService;
+        this.commentService = commentService;
+        this.translationQueue = translationQueue;
     }
     
     @GetMapping
     public List<NewsItem> getLatestNews() {
         logger.info("请求获取最新新闻列表");
-        List<NewsItem> newsList = repository.findTop50ByOrderByTimeDesc();
+        List<NewsItem> newsList = repository.findTop50ByBackfilledIsNullOrBackfilledFalseOrderByTimeDesc();
 
         if (newsList != null && !newsList.isEmpty()) {
             logger.debug("尝试为获取到的 {} 条新闻填充缓存...", newsList.size());
@@ -58,8 +67,23 @@ public class NewsController {
         return newsList;
     }
     
+    /**
+     * 历史回填的新闻（不在热门列表中，没有排名，标题和正文未翻译）
+     * 用法示例: /api/news/archive?page=0&size=50
+     */
+    @GetMapping("/archive")
+    public List<NewsItem> getArchivedNews(@RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        logger.info("请求获取历史回填新闻，页码: {}, 每页: {}", page, size);
+        return repository.findByBackfilledTrueOrderByTimeDesc(
+                PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 200)));
+    }
+    
+    /**
+     * 新闻详情；按需翻译正文时，还没有中文正文的新闻在这里翻译并写回
+     */
     @GetMapping("/{id}")
-    public Optional<NewsItem> getNewsById(@PathVariable Long id) {
+    public Mono<NewsItem> getNewsById(@PathVariable Long id) {
         logger.info("请求获取新闻详情，ID: {}", id);
         NewsItem cachedItem = null;
         try {
@@ -70,7 +94,7 @@ public class NewsController {
 
         if (cachedItem != null) {
             logger.info("缓存命中，返回缓存中的新闻项: {}", id);
-            return Optional.of(cachedItem);
+            return translationQueue.ensureBodyTranslated(cachedItem);
         }
 
         logger.info("缓存未命中，从数据库查询新闻项: {}", id);
@@ -89,11 +113,22 @@ public class NewsController {
             // cacheService.cacheEmptyNewsItem(id); // 需要在CacheService中实现
         }
 
-        return dbItemOptional;
+        return dbItemOptional.map(translationQueue::ensureBodyTranslated).orElse(Mono.empty());
+    }
+    
+    /**
+     * 新闻的评论列表（按深度排序），客户端通过parentId组装评论树
+     */
+    @GetMapping("/{id}/comments")
+    public List<Comment> getComments(@PathVariable Long id) {
+        logger.info("请求获取新闻评论，ID: {}", id);
+        return commentService.getComments(id);
     }
     
     @GetMapping("/test-translate")
     public Mono<String> testTranslate(@RequestParam String text) {
-        return translationService.translateEnToZh(text);
+        return translationService.translateEnToZh(text)
+                .onErrorResume(TranslationService.TranslationFailedException.class,
+                        e -> Mono.just("翻译出错: " + e.getMessage()));
     }
 } 
\ No newline at end of file
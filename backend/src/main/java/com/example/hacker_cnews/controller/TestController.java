@@ -1,5 +1,8 @@
 package com.example.hacker_cnews.controller;
 
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
@@ -7,6 +10,10 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -16,18 +23,29 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import com.example.hacker_cnews.config.HackerNewsConfig;
 import com.example.hacker_cnews.entity.NewsItem;
 import com.example.hacker_cnews.repository.NewsItemRepository;
+import com.example.hacker_cnews.service.BackfillService;
 import com.example.hacker_cnews.service.CacheService;
+import com.example.hacker_cnews.service.CommentService;
+import com.example.hacker_cnews.service.TopStoriesStreamService;
+import com.example.hacker_cnews.service.TranslationQueueService;
 import com.example.hacker_cnews.service.TranslationService;
+import com.example.hacker_cnews.simulator.HackerNewsSimulator;
 import com.example.hacker_cnews.service.NewsUpdateService;
 import com.example.hacker_cnews.service.HackerNewsService;
+import com.example.hacker_cnews.service.ItemRefreshScheduler;
+import com.example.hacker_cnews.util.ConnectionPoolMonitor;
+import com.example.hacker_cnews.util.StreamingJsonDecoder;
+import com.example.hacker_cnews.util.TitleNormalizer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.HashMap;
 import org.springframework.http.HttpStatus;
@@ -57,6 +75,30 @@ public class TestController {
     @Autowired
     private ObjectMapper objectMapper;
     
+    @Autowired
+    private BackfillService backfillService;
+    
+    @Autowired
+    private ConnectionPoolMonitor connectionPoolMonitor;
+    
+    @Autowired
+    private CommentService commentService;
+    
+    @Autowired
+    private HackerNewsConfig hackerNewsConfig;
+    
+    @Autowired
+    private HackerNewsSimulator hackerNewsSimulator;
+    
+    @Autowired
+    private TopStoriesStreamService topStoriesStreamService;
+    
+    @Autowired
+    private TranslationQueueService translationQueueService;
+    
+    @Autowired
+    private ItemRefreshScheduler itemRefreshScheduler;
+    
     @GetMapping
     public String test() {
         return "API 正常工作!";
@@ -137,7 +179,9 @@ public class TestController {
      */
     @GetMapping("/translate")
     public Mono<String> translate(@RequestParam String text) {
-        return translationService.translateEnToZh(text);
+        return translationService.translateEnToZh(text)
+                .onErrorResume(TranslationService.TranslationFailedException.class,
+                        e -> Mono.just("翻译出错: " + e.getMessage()));
     }
     
     /**
@@ -147,6 +191,8 @@ public class TestController {
     @GetMapping(value = "/translate-html", produces = "text/html")
     public Mono<String> translateHtml(@RequestParam String text) {
         return translationService.translateEnToZh(text)
+                .onErrorResume(TranslationService.TranslationFailedException.class,
+                        e -> Mono.just("翻译出错: " + e.getMessage()))
                 .map(result -> {
                     StringBuilder html = new StringBuilder();
                     html.append("<!DOCTYPE html><html><head><title>翻译测试</title>");
@@ -266,7 +312,7 @@ public class TestController {
     public Mono<Map<String, Object>> testDirectApiAccess() {
         logger.info("执行直接API访问测试");
         WebClient testClient = WebClient.builder()
-                .baseUrl("https://hacker-news.firebaseio.com/v0")
+                .baseUrl(hackerNewsConfig.getApiBaseUrl())
                 .build();
         
         return testClient.get()
@@ -333,7 +379,7 @@ public class TestController {
         logger.info("检查字段映射测试 - 获取项目 ID: {}", id);
         
         return WebClient.builder()
-                .baseUrl("https://hacker-news.firebaseio.com/v0")
+                .baseUrl(hackerNewsConfig.getApiBaseUrl())
                 .build()
                 .get()
                 .uri("/item/{id}.json", id)
@@ -428,14 +474,16 @@ public class TestController {
                     
                     // 开始翻译标题
                     result.append("<h2>翻译处理</h2>");
-                    return translationService.translateEnToZh(hnItem.getTitle())
-                            .flatMap(translatedTitle -> {
+                    return translationService.translateTitle(hnItem.getTitle())
+                            .flatMap(titleResult -> {
+                                String translatedTitle = titleResult.getText();
                                 result.append("<p>标题翻译: ").append(translatedTitle).append("</p>");
                                 
                                 Mono<String> textTranslation = Mono.just("");
                                 if (hnItem.getText() != null && !hnItem.getText().isEmpty()) {
-                                    return translationService.translateEnToZh(hnItem.getText())
-                                            .map(translatedText -> {
+                                    return translationService.translateBody(hnItem.getText())
+                                            .map(textResult -> {
+                                                String translatedText = textResult.getText();
                                                 result.append("<p>文本翻译: ").append(translatedText).append("</p>");
                                                 
                                                 // 检查数据库中是否已存在该新闻
@@ -458,10 +506,11 @@ public class TestController {
                                                 // 设置或更新字段
                                                 newsItem.setId(hnItem.getId());
                                                 newsItem.setTitleEn(hnItem.getTitle());
-                                                newsItem.setTitleZh(translatedTitle);
+                                                // 不可持久化的结果（本地桩）只展示，不保存
+                                                newsItem.setTitleZh(titleResult.isPersistable() ? translatedTitle : null);
                                                 newsItem.setUrl(hnItem.getUrl());
                                                 newsItem.setTextEn(hnItem.getText());
-                                                newsItem.setTextZh(translatedText);
+                                                newsItem.setTextZh(textResult.isPersistable() ? translatedText : null);
                                                 newsItem.setType(hnItem.getType());
                                                 newsItem.setTime(hnItem.getTime());
                                                 // 设置/更新关键字段
@@ -521,7 +570,7 @@ public class TestController {
                                     // 设置或更新字段
                                     newsItem.setId(hnItem.getId());
                                     newsItem.setTitleEn(hnItem.getTitle());
-                                    newsItem.setTitleZh(translatedTitle);
+                                    newsItem.setTitleZh(titleResult.isPersistable() ? translatedTitle : null);
                                     newsItem.setUrl(hnItem.getUrl());
                                     newsItem.setType(hnItem.getType());
                                     newsItem.setTime(hnItem.getTime());
@@ -606,6 +655,8 @@ public class TestController {
         logger.info("测试修复后的百度翻译API，文本: {}", text);
         
         return translationService.translateEnToZh(text)
+                .onErrorResume(TranslationService.TranslationFailedException.class,
+                        e -> Mono.just("翻译出错: " + e.getMessage()))
                 .map(result -> {
                     StringBuilder html = new StringBuilder();
                     html.append("<!DOCTYPE html><html><head><title>翻译API测试</title>");
@@ -666,6 +717,8 @@ public class TestController {
         try {
             // 清空数据库
             repository.deleteAll();
+            cacheService.clearItemFingerprints();
+            itemRefreshScheduler.reset();
             logger.info("数据库已清空");
             
             // 触发新闻更新
@@ -859,8 +912,8 @@ public class TestController {
         html.append("            </td>\n");
         html.append("        </tr>\n");
         html.append("        <tr class=\"highlight\">\n");
-        html.append("            <td>百度vs DeepL对比</td>\n");
-        html.append("            <td>比较百度翻译和DeepL翻译的结果质量</td>\n");
+        html.append("            <td>翻译提供方对比</td>\n");
+        html.append("            <td>比较各翻译提供方的结果质量</td>\n");
         html.append("            <td><a href=\"/api/test/compare-translation\" target=\"_blank\">默认测试</a> | \n");
         html.append("                <form style=\"display:inline;\" action=\"/api/test/compare-translation\" method=\"get\" target=\"_blank\">\n");
         html.append("                    <input type=\"text\" name=\"text\" placeholder=\"输入英文\" style=\"width:120px;\">\n");
@@ -1012,15 +1065,8 @@ public class TestController {
     public Mono<ResponseEntity<String>> fixIncompleteData() {
         logger.info("开始修复不完整数据");
         
-        // 获取所有新闻项
-        List<NewsItem> allItems = repository.findAll();
-        
-        // 过滤出不完整的记录
-        List<NewsItem> incompleteItems = allItems.stream()
-            .filter(item -> item.getTitleEn() == null || 
-                           item.getRank() == null || 
-                           item.getScore() == null)
-            .collect(Collectors.toList());
+        // 查询不完整的记录（不含历史回填的记录）
+        List<NewsItem> incompleteItems = repository.findIncomplete();
         
         // 如果没有不完整的记录，直接返回
         if (incompleteItems.isEmpty()) {
@@ -1193,7 +1239,7 @@ public class TestController {
         return WebClient.builder()
                 .build()
                 .get()
-                .uri("https://hacker-news.firebaseio.com/v0/item/{id}.json", id)
+                .uri(hackerNewsConfig.getApiBaseUrl() + "/item/{id}.json", id)
                 .retrieve()
                 .bodyToMono(String.class)
                 .map(rawJson -> {
@@ -1226,7 +1272,7 @@ public class TestController {
         return WebClient.builder()
                 .build()
                 .get()
-                .uri("https://hacker-news.firebaseio.com/v0/item/{id}.json", id)
+                .uri(hackerNewsConfig.getApiBaseUrl() + "/item/{id}.json", id)
                 .retrieve()
                 .bodyToMono(String.class)
                 .flatMap(rawJson -> {
@@ -1359,7 +1405,7 @@ public class TestController {
         return WebClient.builder()
                 .build()
                 .get()
-                .uri("https://hacker-news.firebaseio.com/v0/topstories.json")
+                .uri(hackerNewsConfig.getApiBaseUrl() + "/topstories.json")
                 .retrieve()
                 .bodyToMono(String.class);
     }
@@ -1371,7 +1417,7 @@ public class TestController {
         return WebClient.builder()
                 .build()
                 .get()
-                .uri("https://hacker-news.firebaseio.com/v0/topstories.json")
+                .uri(hackerNewsConfig.getApiBaseUrl() + "/topstories.json")
                 .retrieve()
                 .bodyToMono(String.class)
                 .flatMap(idsJson -> {
@@ -1397,7 +1443,7 @@ public class TestController {
                             Mono<String> request = WebClient.builder()
                                     .build()
                                     .get()
-                                    .uri("https://hacker-news.firebaseio.com/v0/item/{id}.json", id)
+                                    .uri(hackerNewsConfig.getApiBaseUrl() + "/item/{id}.json", id)
                                     .retrieve()
                                     .bodyToMono(String.class)
                                     .map(itemJson -> {
@@ -1691,8 +1737,8 @@ public class TestController {
     public ResponseEntity<String> viewAllNews() {
         logger.info("查看所有新闻记录");
         
-        // 获取所有新闻项
-        List<NewsItem> allItems = repository.findAll(Sort.by(Sort.Direction.DESC, "time"));
+        // 获取所有新闻项（历史回填的记录数量很大，不在此列出）
+        List<NewsItem> allItems = repository.findByBackfilledIsNullOrBackfilledFalse(Sort.by(Sort.Direction.DESC, "time"));
         
         // 准备HTML结果页
         StringBuilder html = new StringBuilder();
@@ -1780,65 +1826,25 @@ public class TestController {
     }
 
     /**
-     * 比较翻译结果测试端点
+     * 比较翻译结果测试端点，分别用每个翻译提供方翻译同一段文本（不经过缓存）
      * 用法示例: /api/test/compare-translation?text=Hello%20World
      */
     @GetMapping(value = "/compare-translation", produces = "text/html")
-    public Mono<String> compareTranslation(@RequestParam(defaultValue = "Hello, this is a test for comparing translation quality between Baidu and DeepL.") String text) {
+    public Mono<String> compareTranslation(@RequestParam(defaultValue = "Hello, this is a test for comparing translation quality between providers.") String text) {
         logger.info("比较翻译测试: {}", text);
         
-        // 临时禁用DeepL，使用百度翻译
-        boolean originalUseDeepL = true;
-        try {
-            java.lang.reflect.Field field = translationService.getClass().getDeclaredField("useDeepL");
-            field.setAccessible(true);
-            originalUseDeepL = field.getBoolean(translationService);
-            field.setBoolean(translationService, false);
-        } catch (Exception e) {
-            logger.error("获取或设置useDeepL字段失败", e);
-        }
-        
-        // 使用百度翻译
-        Mono<String> baiduResult = translationService.translateEnToZh(text);
-        
-        // 恢复并启用DeepL翻译
-        try {
-            java.lang.reflect.Field field = translationService.getClass().getDeclaredField("useDeepL");
-            field.setAccessible(true);
-            field.setBoolean(translationService, true);
-        } catch (Exception e) {
-            logger.error("设置useDeepL字段失败", e);
-        }
-        
-        // 使用DeepL翻译
-        Mono<String> deeplResult = translationService.translateEnToZh(text);
-        
-        // 恢复原始设置
-        try {
-            java.lang.reflect.Field field = translationService.getClass().getDeclaredField("useDeepL");
-            field.setAccessible(true);
-            field.setBoolean(translationService, originalUseDeepL);
-        } catch (Exception e) {
-            logger.error("恢复useDeepL字段失败", e);
-        }
-        
         // 组合结果并生成HTML页面
-        return Mono.zip(baiduResult, deeplResult)
-                .map(tuple -> {
-                    String baiduTranslation = tuple.getT1();
-                    String deeplTranslation = tuple.getT2();
-                    
+        return translationService.compareProviders(text)
+                .map(results -> {
                     StringBuilder html = new StringBuilder();
                     html.append("<!DOCTYPE html><html><head><title>翻译比较测试</title>");
                     html.append("<meta charset=\"UTF-8\"><style>");
                     html.append("body{font-family:Arial,sans-serif;max-width:800px;margin:0 auto;padding:20px;}");
                     html.append(".card{border:1px solid #ddd;border-radius:8px;padding:15px;margin-top:20px;}");
-                    html.append(".original{color:#333;font-weight:bold;}.baidu{color:#c05b4d;}.deepl{color:#0066cc;font-weight:bold;}");
+                    html.append(".original{color:#333;font-weight:bold;}.result{color:#0066cc;font-weight:bold;}");
                     html.append("h2{margin-top:30px;color:#444;border-bottom:1px solid #eee;padding-bottom:10px;}");
                     html.append(".comparison{display:flex;gap:20px;margin-top:20px;}");
-                    html.append(".comparison > div{flex:1;padding:15px;border-radius:8px;}");
-                    html.append(".baidu-box{background-color:#fff1f0;border:1px solid #ffccc7;}");
-                    html.append(".deepl-box{background-color:#e6f7ff;border:1px solid #91d5ff;}");
+                    html.append(".comparison > div{flex:1;padding:15px;border-radius:8px;background-color:#e6f7ff;border:1px solid #91d5ff;}");
                     html.append("</style></head><body>");
                     html.append("<h1>翻译服务比较</h1>");
                     html.append("<div class=\"card\">");
@@ -1846,17 +1852,12 @@ public class TestController {
                     
                     html.append("<h2>翻译结果比较</h2>");
                     html.append("<div class=\"comparison\">");
-                    
-                    html.append("<div class=\"baidu-box\">");
-                    html.append("<h3>百度翻译</h3>");
-                    html.append("<p class=\"baidu\">").append(baiduTranslation).append("</p>");
-                    html.append("</div>");
-                    
-                    html.append("<div class=\"deepl-box\">");
-                    html.append("<h3>DeepL翻译</h3>");
-                    html.append("<p class=\"deepl\">").append(deeplTranslation).append("</p>");
-                    html.append("</div>");
-                    
+                    results.forEach((provider, translation) -> {
+                        html.append("<div>");
+                        html.append("<h3>").append(provider).append("</h3>");
+                        html.append("<p class=\"result\">").append(translation).append("</p>");
+                        html.append("</div>");
+                    });
                     html.append("</div>"); // 结束comparison
                     
                     html.append("</div>"); // 结束card
@@ -1878,6 +1879,7 @@ public class TestController {
         try {
             // 清空数据库
             repository.deleteAll();
+            itemRefreshScheduler.reset();
             logger.info("数据库已清空");
             
             // 清空缓存
@@ -1920,4 +1922,371 @@ public class TestController {
                           "</body>\n</html>"));
         }
     }
+
+    /**
+     * 开始（或继续）历史回填
+     * 用法示例: /api/test/backfill/start
+     */
+    @GetMapping("/backfill/start")
+    public Map<String, Object> startBackfill() {
+        boolean started = backfillService.start();
+        Map<String, Object> result = new HashMap<>(backfillService.getStatus());
+        result.put("message", started ? "历史回填已开始" : "历史回填已在运行中");
+        return result;
+    }
+    
+    /**
+     * 停止历史回填，下次启动时从检查点继续
+     * 用法示例: /api/test/backfill/stop
+     */
+    @GetMapping("/backfill/stop")
+    public Map<String, Object> stopBackfill() {
+        backfillService.stop();
+        Map<String, Object> result = new HashMap<>(backfillService.getStatus());
+        result.put("message", "历史回填已停止");
+        return result;
+    }
+    
+    /**
+     * 查看历史回填进度和吞吐量
+     * 用法示例: /api/test/backfill/status
+     */
+    @GetMapping("/backfill/status")
+    public Map<String, Object> backfillStatus() {
+        return backfillService.getStatus();
+    }
+    
+    /**
+     * 调整历史回填的全局抓取速率
+     * 用法示例: /api/test/backfill/throttle?itemsPerSecond=5
+     */
+    @GetMapping("/backfill/throttle")
+    public Map<String, Object> throttleBackfill(@RequestParam double itemsPerSecond) {
+        Map<String, Object> result = new HashMap<>();
+        try {
+            backfillService.setItemsPerSecond(itemsPerSecond);
+            result.putAll(backfillService.getStatus());
+        } catch (IllegalArgumentException e) {
+            result.put("error", e.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * 查看Hacker News客户端的请求统计
+     * 用法示例: /api/test/hn-client-stats
+     */
+    @GetMapping("/hn-client-stats")
+    public Map<String, Object> hackerNewsClientStats() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("itemFetch", hackerNewsService.getItemFetchStats());
+        result.put("fetchLimiter", hackerNewsService.getFetchLimiterStats());
+        result.put("resilience", hackerNewsService.getResilienceStats());
+        return result;
+    }
+
+    /**
+     * 对比两种条目解码方式的单条内存分配：
+     * 先转为String再解析 vs 直接从DataBuffer流式解析
+     * 用法示例: /api/test/decode-benchmark?iterations=5000
+     */
+    @GetMapping("/decode-benchmark")
+    public Mono<Map<String, Object>> decodeBenchmark(@RequestParam(defaultValue = "5000") int iterations) {
+        return Mono.fromCallable(() -> {
+            byte[] json = buildSampleItemJson();
+            StreamingJsonDecoder decoder = new StreamingJsonDecoder(objectMapper);
+            com.sun.management.ThreadMXBean threadBean = 
+                    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            
+            // 预热，避免JIT编译影响结果
+            for (int i = 0; i < 1000; i++) {
+                decodeViaString(json);
+                decodeViaDataBuffers(decoder, json);
+            }
+            
+            long allocatedBefore = threadBean.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                decodeViaString(json);
+            }
+            long stringNanos = System.nanoTime() - start;
+            long stringBytes = threadBean.getCurrentThreadAllocatedBytes() - allocatedBefore;
+            
+            allocatedBefore = threadBean.getCurrentThreadAllocatedBytes();
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                decodeViaDataBuffers(decoder, json);
+            }
+            long streamingNanos = System.nanoTime() - start;
+            long streamingBytes = threadBean.getCurrentThreadAllocatedBytes() - allocatedBefore;
+            
+            Map<String, Object> result = new HashMap<>();
+            result.put("iterations", iterations);
+            result.put("itemJsonBytes", json.length);
+            result.put("stringPathBytesPerItem", stringBytes / iterations);
+            result.put("streamingPathBytesPerItem", streamingBytes / iterations);
+            result.put("allocationReductionPercent", 
+                    Math.round(1000.0 * (stringBytes - streamingBytes) / stringBytes) / 10.0);
+            result.put("stringPathNanosPerItem", stringNanos / iterations);
+            result.put("streamingPathNanosPerItem", streamingNanos / iterations);
+            return result;
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+    
+    private HackerNewsService.HackerNewsItem decodeViaString(byte[] json) {
+        // 与原实现一致：bodyToMono(String.class)经StringDecoder拼接并解码为String，再用ObjectMapper解析
+        return StringDecoder.allMimeTypes()
+                .decodeToMono(splitIntoDataBuffers(json), ResolvableType.forClass(String.class), null, null)
+                .map(rawJson -> {
+                    try {
+                        return objectMapper.readValue(rawJson, HackerNewsService.HackerNewsItem.class);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .block();
+    }
+    
+    private HackerNewsService.HackerNewsItem decodeViaDataBuffers(StreamingJsonDecoder decoder, byte[] json) {
+        return decoder.decode(splitIntoDataBuffers(json), HackerNewsService.HackerNewsItem.class).block();
+    }
+    
+    /**
+     * 模拟网络分包：响应体分两个DataBuffer到达
+     */
+    private Flux<DataBuffer> splitIntoDataBuffers(byte[] json) {
+        int split = json.length / 2;
+        DefaultDataBufferFactory factory = DefaultDataBufferFactory.sharedInstance;
+        return Flux.just(
+                factory.wrap(ByteBuffer.wrap(json, 0, split)),
+                factory.wrap(ByteBuffer.wrap(json, split, json.length - split)));
+    }
+    
+    /**
+     * 构造一个接近真实Ask HN帖子的条目JSON（带正文和评论ID）
+     */
+    private byte[] buildSampleItemJson() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 12; i++) {
+            text.append("I&#x27;ve been working on a side project for the last few months and ")
+                .append("wanted to share what we learned about scaling it.<p>");
+        }
+        StringBuilder kids = new StringBuilder();
+        for (int i = 0; i < 80; i++) {
+            if (i > 0) {
+                kids.append(',');
+            }
+            kids.append(43573200L + i * 7);
+        }
+        String json = "{\"by\":\"pg\",\"descendants\":182,\"id\":43573156,\"kids\":[" + kids + "],"
+                + "\"score\":421,\"text\":\"" + text + "\",\"time\":1743602533,"
+                + "\"title\":\"Ask HN: What are you working on? (April 2025)\",\"type\":\"story\"}";
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 查看上游HTTP连接池的实时指标（活跃、空闲、等待、获取连接耗时）
+     * 用法示例: /api/test/http-pools
+     */
+    @GetMapping("/http-pools")
+    public Map<String, Object> httpPoolStats() {
+        return connectionPoolMonitor.getStats();
+    }
+
+    /**
+     * 查看当前（或最近一个）更新周期的处理统计，包括指纹未变而跳过的数量、各优先级的排队情况，以及条目刷新调度状态
+     * 用法示例: /api/test/update-stats
+     */
+    @GetMapping("/update-stats")
+    public Map<String, Object> updateStats() {
+        Map<String, Object> result = new HashMap<>(newsUpdateService.getCycleStats());
+        result.put("scheduler", newsUpdateService.getSchedulerStats());
+        result.put("refresh", newsUpdateService.getRefreshStats());
+        return result;
+    }
+
+    /**
+     * 立即刷新排名靠前新闻的评论树
+     * 用法示例: /api/test/comments/refresh
+     */
+    @GetMapping("/comments/refresh")
+    public Map<String, Object> refreshComments() {
+        boolean started = commentService.refresh();
+        Map<String, Object> result = new HashMap<>(commentService.getStatus());
+        result.put("message", started ? "评论刷新已开始" : "评论刷新已在运行中");
+        return result;
+    }
+    
+    /**
+     * 查看评论抓取统计
+     * 用法示例: /api/test/comments/status
+     */
+    @GetMapping("/comments/status")
+    public Map<String, Object> commentsStatus() {
+        return commentService.getStatus();
+    }
+
+    /**
+     * 查看本地HN模拟器状态和请求统计
+     * 用法示例: /api/test/simulator/status
+     */
+    @GetMapping("/simulator/status")
+    public Map<String, Object> simulatorStatus() {
+        return hackerNewsSimulator.getStatus();
+    }
+    
+    /**
+     * 运行时调整模拟器的延迟分布、错误率和429突发，未传入的参数保持不变
+     * 用法示例: /api/test/simulator/faults?distribution=lognormal&medianMs=80&p99Ms=2000&errorRate=0.02&burstIntervalMs=60000&burstDurationMs=5000
+     */
+    @GetMapping("/simulator/faults")
+    public Map<String, Object> simulatorFaults(
+            @RequestParam(required = false) String distribution,
+            @RequestParam(required = false) Long medianMs,
+            @RequestParam(required = false) Long p99Ms,
+            @RequestParam(required = false) Double errorRate,
+            @RequestParam(required = false) Long burstIntervalMs,
+            @RequestParam(required = false) Long burstDurationMs) {
+        hackerNewsSimulator.configureFaults(distribution, medianMs, p99Ms, errorRate, burstIntervalMs, burstDurationMs);
+        return hackerNewsSimulator.getStatus();
+    }
+    
+    /**
+     * 通过HackerNewsService从maxitem往下抓取count个条目，测量抓取吞吐量
+     * 只在模拟器运行时可用，避免对真实API施压
+     * 用法示例: /api/test/simulator/benchmark?count=2000
+     */
+    @GetMapping("/simulator/benchmark")
+    public Mono<Map<String, Object>> simulatorBenchmark(@RequestParam(defaultValue = "1000") int count) {
+        if (!hackerNewsSimulator.isRunning()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "模拟器未运行，请设置 hacker-news.simulator.enabled=true 并将 hacker-news.api.base-url 指向模拟器");
+            return Mono.just(error);
+        }
+        
+        long startNanos = System.nanoTime();
+        return hackerNewsService.getMaxItem()
+                .flatMapMany(maxItem -> Flux.range(0, count).map(offset -> maxItem - offset))
+                .flatMap(id -> hackerNewsService.getItemById(id), hackerNewsService.getMaxFetchConcurrency())
+                .reduce(new long[2], (counts, item) -> {
+                    counts[item.getType() != null ? 0 : 1]++;
+                    return counts;
+                })
+                .map(counts -> {
+                    double elapsedSeconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+                    Map<String, Object> result = new HashMap<>();
+                    result.put("count", count);
+                    result.put("fetched", counts[0]);
+                    result.put("failed", counts[1]);
+                    result.put("elapsedSeconds", Math.round(elapsedSeconds * 1000) / 1000.0);
+                    result.put("itemsPerSecond", Math.round(count / elapsedSeconds * 100) / 100.0);
+                    result.put("fetchLimiter", hackerNewsService.getFetchLimiterStats());
+                    result.put("resilience", hackerNewsService.getResilienceStats());
+                    result.put("simulator", hackerNewsSimulator.getStatus());
+                    return result;
+                });
+    }
+
+    /**
+     * 开始热门列表推送订阅（text/event-stream）
+     * 用法示例: /api/test/stream/start
+     */
+    @GetMapping("/stream/start")
+    public Map<String, Object> startTopStoriesStream() {
+        boolean started = topStoriesStreamService.start();
+        Map<String, Object> result = new HashMap<>(topStoriesStreamService.getStatus());
+        result.put("message", started ? "推送订阅已开始" : "推送订阅已在运行中");
+        return result;
+    }
+    
+    /**
+     * 停止热门列表推送订阅，恢复定时轮询
+     * 用法示例: /api/test/stream/stop
+     */
+    @GetMapping("/stream/stop")
+    public Map<String, Object> stopTopStoriesStream() {
+        topStoriesStreamService.stop();
+        Map<String, Object> result = new HashMap<>(topStoriesStreamService.getStatus());
+        result.put("message", "推送订阅已停止");
+        return result;
+    }
+    
+    /**
+     * 查看热门列表推送订阅状态
+     * 用法示例: /api/test/stream/status
+     */
+    @GetMapping("/stream/status")
+    public Map<String, Object> topStoriesStreamStatus() {
+        return topStoriesStreamService.getStatus();
+    }
+    
+    /**
+     * 查看翻译服务统计，包括翻译缓存各层的命中率、被合并的重复翻译请求数、长文本分段的缓存命中、DeepL批量请求的平均批大小、拆分重试和失败数，
+     * 以及DeepL剩余字符配额和速率限制的排队情况
+     * 用法示例: /api/test/translation/stats
+     */
+    @GetMapping("/translation/stats")
+    public Map<String, Object> translationStats() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("cache", cacheService.getTranslationCacheStats());
+        result.put("dedup", translationService.getDedupStats());
+        result.put("segments", translationService.getSegmentStats());
+        result.put("titles", translationService.getTitleStats());
+        result.put("batch", translationService.getBatchStats());
+        result.put("quota", translationService.getQuotaStats());
+        result.put("providers", translationService.getProviderStats());
+        result.put("queue", translationQueueService.getStats());
+        result.put("failures", translationService.getFailureStats());
+        return result;
+    }
+    
+    /**
+     * 把旧格式（以原文为键）的翻译缓存一次性迁移为摘要键和压缩后的值
+     * 用法示例: /api/test/cache/migrate-translations
+     */
+    @GetMapping("/cache/migrate-translations")
+    public Map<String, Object> migrateTranslationCache() {
+        return cacheService.migrateLegacyTranslations();
+    }
+    
+    /**
+     * 用数据库中已翻译的标题和正文比较旧格式与新格式翻译缓存的空间占用
+     * 用法示例: /api/test/cache/translation-memory
+     */
+    @GetMapping("/cache/translation-memory")
+    public Map<String, Object> translationCacheMemory() {
+        Map<String, String> samples = new HashMap<>();
+        for (NewsItem item : repository.findTranslated()) {
+            if (item.getTitleEn() != null && item.getTitleZh() != null && !item.getTitleZh().isEmpty()) {
+                samples.put(item.getTitleEn(), item.getTitleZh());
+            }
+            if (item.getTextEn() != null && item.getTextZh() != null && !item.getTextZh().isEmpty()) {
+                samples.put(item.getTextEn(), item.getTextZh());
+            }
+        }
+        return cacheService.compareTranslationMemory(samples);
+    }
+    
+    /**
+     * 用数据库中的标题重放翻译缓存查询，比较标题规范化前后的命中率
+     * 按新闻时间顺序从空缓存开始，规范化前按完整标题（合并空白）计键，规范化后按标题主体计键
+     * 用法示例: /api/test/translation/title-normalization
+     */
+    @GetMapping("/translation/title-normalization")
+    public Map<String, Object> titleNormalization() {
+        List<String> titles = repository.findTitlesOrderByTimeAsc();
+        return TitleNormalizer.compareHitRatio(titles);
+    }
+    
+    /**
+     * 立即清除数据库中保存的翻译失败提示，并把这些新闻重新登记到翻译队列
+     * 用法示例: /api/test/translation/sweep-failures
+     */
+    @GetMapping("/translation/sweep-failures")
+    public Map<String, Object> sweepTranslationFailures() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("swept", translationQueueService.sweepFailedTranslations());
+        result.put("queue", translationQueueService.getStats());
+        return result;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,93 @@
+package com.example.hacker_cnews.entity;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * 历史回填的区间检查点
+ * 每个区间[rangeStart, rangeEnd]记录下一个待抓取的ID，重启后从该位置继续；
+ * 获取失败的ID记录在failedIds中，全部重试成功后区间才算完成
+ */
+@Entity
+@Table(name = "backfill_checkpoint")
+public class BackfillCheckpoint implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    @Id
+    private Long rangeStart;  // 区间起始ID（含），同时作为主键
+    
+    private Long rangeEnd;    // 区间结束ID（含）
+    
+    private Long nextId;      // 下一个待抓取的ID
+    
+    private Boolean completed;
+    
+    private Long itemsStored; // 该区间已保存的新闻数量
+    
+    private Instant updatedAt;
+    
+    @Column(columnDefinition = "TEXT")
+    private String failedIds; // 获取失败、待重试的ID，逗号分隔
+
+    // Getters and Setters
+    public Long getRangeStart() {
+        return rangeStart;
+    }
+
+    public void setRangeStart(Long rangeStart) {
+        this.rangeStart = rangeStart;
+    }
+
+    public Long getRangeEnd() {
+        return rangeEnd;
+    }
+
+    public void setRangeEnd(Long rangeEnd) {
+        this.rangeEnd = rangeEnd;
+    }
+
+    public Long getNextId() {
+        return nextId;
+    }
+
+    public void setNextId(Long nextId) {
+        this.nextId = nextId;
+    }
+
+    public Boolean getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(Boolean completed) {
+        this.completed = completed;
+    }
+
+    public Long getItemsStored() {
+        return itemsStored;
+    }
+
+    public void setItemsStored(Long itemsStored) {
+        this.itemsStored = itemsStored;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public String getFailedIds() {
+        return failedIds;
+    }
+
+    public void setFailedIds(String failedIds) {
+        this.failedIds = failedIds;
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,139 @@
+package com.example.hacker_cnews.entity;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Hacker News评论
+ * 通过parentId还原评论树，storyId用于按新闻批量查询和清理
+ */
+@Entity
+@Table(name = "hn_comment", indexes = {
+    @Index(name = "idx_comment_parent", columnList = "parentId"),
+    @Index(name = "idx_comment_story", columnList = "storyId")
+})
+public class Comment implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    @Id
+    private Long id;  // 使用Hacker News的ID作为主键
+    
+    private Long storyId;   // 所属新闻ID
+    
+    private Long parentId;  // 父条目ID（新闻或评论）
+    
+    private Integer depth;  // 顶层评论为1
+    
+    @Column(length = 100)
+    private String author;
+    
+    @Column(columnDefinition = "TEXT")
+    private String textEn;
+    
+    // 子评论ID列表，逗号分隔，用于判断子树是否变化
+    @Column(columnDefinition = "TEXT")
+    private String kidIds;
+    
+    private Long time;
+    
+    private Boolean deleted;
+    
+    private Boolean dead;
+    
+    private Instant lastUpdated;
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getStoryId() {
+        return storyId;
+    }
+
+    public void setStoryId(Long storyId) {
+        this.storyId = storyId;
+    }
+
+    public Long getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(Long parentId) {
+        this.parentId = parentId;
+    }
+
+    public Integer getDepth() {
+        return depth;
+    }
+
+    public void setDepth(Integer depth) {
+        this.depth = depth;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public String getTextEn() {
+        return textEn;
+    }
+
+    public void setTextEn(String textEn) {
+        this.textEn = textEn;
+    }
+
+    public String getKidIds() {
+        return kidIds;
+    }
+
+    public void setKidIds(String kidIds) {
+        this.kidIds = kidIds;
+    }
+
+    public Long getTime() {
+        return time;
+    }
+
+    public void setTime(Long time) {
+        this.time = time;
+    }
+
+    public Boolean getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(Boolean deleted) {
+        this.deleted = deleted;
+    }
+
+    public Boolean getDead() {
+        return dead;
+    }
+
+    public void setDead(Boolean dead) {
+        this.dead = dead;
+    }
+
+    public Instant getLastUpdated() {
+        return lastUpdated;
+    }
+
+    public void setLastUpdated(Instant lastUpdated) {
+        this.lastUpdated = lastUpdated;
+    }
+} 
@@ -0,0 +1,70 @@
+package com.example.hacker_cnews.entity;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * 每条新闻的评论抓取状态
+ * 记录上次抓取时的评论数，评论数未变化的新闻在下个周期直接跳过
+ */
+@Entity
+@Table(name = "comment_crawl_state")
+public class CommentCrawlState implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    @Id
+    private Long storyId;
+    
+    private Integer descendants;    // 上次抓取时HN报告的评论数
+    
+    private Long commentsStored;    // 本地已保存的评论数
+    
+    private Boolean truncated;      // 上次抓取是否因深度/数量预算而截断
+    
+    private Instant lastCrawledAt;
+
+    // Getters and Setters
+    public Long getStoryId() {
+        return storyId;
+    }
+
+    public void setStoryId(Long storyId) {
+        this.storyId = storyId;
+    }
+
+    public Integer getDescendants() {
+        return descendants;
+    }
+
+    public void setDescendants(Integer descendants) {
+        this.descendants = descendants;
+    }
+
+    public Long getCommentsStored() {
+        return commentsStored;
+    }
+
+    public void setCommentsStored(Long commentsStored) {
+        this.commentsStored = commentsStored;
+    }
+
+    public Boolean getTruncated() {
+        return truncated;
+    }
+
+    public void setTruncated(Boolean truncated) {
+        this.truncated = truncated;
+    }
+
+    public Instant getLastCrawledAt() {
+        return lastCrawledAt;
+    }
+
+    public void setLastCrawledAt(Instant lastCrawledAt) {
+        this.lastCrawledAt = lastCrawledAt;
+    }
+} 
@@ -0,0 +1,100 @@
+package com.example.hacker_cnews.entity;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * 单条新闻的刷新调度状态
+ * 根据相邻两次观测之间的分数和排名变化估算速度，速度越快下次刷新越早
+ */
+@Entity
+@Table(name = "item_refresh_state")
+public class ItemRefreshState implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    @Id
+    private Long itemId;
+    
+    private Integer lastScore;
+    
+    private Integer lastRank;
+    
+    private Instant lastObservedAt;
+    
+    private Double scoreVelocity;   // 分数变化速度（分/分钟，指数平滑）
+    
+    private Double rankVelocity;    // 排名变化速度（名次/分钟，指数平滑）
+    
+    private Instant nextRefreshAt;
+    
+    private Long refreshCount;
+
+    // Getters and Setters
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(Long itemId) {
+        this.itemId = itemId;
+    }
+
+    public Integer getLastScore() {
+        return lastScore;
+    }
+
+    public void setLastScore(Integer lastScore) {
+        this.lastScore = lastScore;
+    }
+
+    public Integer getLastRank() {
+        return lastRank;
+    }
+
+    public void setLastRank(Integer lastRank) {
+        this.lastRank = lastRank;
+    }
+
+    public Instant getLastObservedAt() {
+        return lastObservedAt;
+    }
+
+    public void setLastObservedAt(Instant lastObservedAt) {
+        this.lastObservedAt = lastObservedAt;
+    }
+
+    public Double getScoreVelocity() {
+        return scoreVelocity;
+    }
+
+    public void setScoreVelocity(Double scoreVelocity) {
+        this.scoreVelocity = scoreVelocity;
+    }
+
+    public Double getRankVelocity() {
+        return rankVelocity;
+    }
+
+    public void setRankVelocity(Double rankVelocity) {
+        this.rankVelocity = rankVelocity;
+    }
+
+    public Instant getNextRefreshAt() {
+        return nextRefreshAt;
+    }
+
+    public void setNextRefreshAt(Instant nextRefreshAt) {
+        this.nextRefreshAt = nextRefreshAt;
+    }
+
+    public Long getRefreshCount() {
+        return refreshCount;
+    }
+
+    public void setRefreshCount(Long refreshCount) {
+        this.refreshCount = refreshCount;
+    }
+} 
@@ -50,6 +50,9 @@ public class NewsItem implements Serializable {
     
     // 新增字段 - 最后更新时间
     private Instant lastUpdated;
+    
+    // 是否为历史回填的记录（不参与热门列表的清理和修复）
+    private Boolean backfilled;
 
     // Getters and Setters
     public Long getId() {
@@ -155,4 +158,12 @@ public class NewsItem implements Serializable {
     public void setLastUpdated(Instant lastUpdated) {
         this.lastUpdated = lastUpdated;
     }
+    
+    public Boolean getBackfilled() {
+        return backfilled;
+    }
+    
+    public void setBackfilled(Boolean backfilled) {
+        this.backfilled = backfilled;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,87 @@
+package com.example.hacker_cnews.entity;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * 持久化的翻译记忆
+ * 以语言对加规范化原文的摘要为主键，不受Redis清空和缓存有效期影响
+ */
+@Entity
+@Table(name = "translation_memory", indexes = {
+    @Index(name = "idx_translation_memory_last_used", columnList = "lastUsedAt")
+})
+public class TranslationMemory implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    @Id
+    @Column(length = 80)
+    private String sourceKey;     // 与Redis翻译缓存键的后缀相同，例如 en-zh:<sha256>
+    
+    @Column(columnDefinition = "TEXT")
+    private String sourceText;
+    
+    @Column(columnDefinition = "TEXT")
+    private String translation;
+    
+    private Instant createdAt;
+    
+    private Instant lastUsedAt;   // 最近一次写入或从这里读取的时间，启动预热按它取最近的条目
+    
+    private Long hitCount;        // Redis未命中后从这里读取的次数
+
+    // Getters and Setters
+    public String getSourceKey() {
+        return sourceKey;
+    }
+
+    public void setSourceKey(String sourceKey) {
+        this.sourceKey = sourceKey;
+    }
+
+    public String getSourceText() {
+        return sourceText;
+    }
+
+    public void setSourceText(String sourceText) {
+        this.sourceText = sourceText;
+    }
+
+    public String getTranslation() {
+        return translation;
+    }
+
+    public void setTranslation(String translation) {
+        this.translation = translation;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getLastUsedAt() {
+        return lastUsedAt;
+    }
+
+    public void setLastUsedAt(Instant lastUsedAt) {
+        this.lastUsedAt = lastUsedAt;
+    }
+
+    public Long getHitCount() {
+        return hitCount;
+    }
+
+    public void setHitCount(Long hitCount) {
+        this.hitCount = hitCount;
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.example.hacker_cnews.entity;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * 待翻译的新闻（翻译发件箱）
+ * 新闻先以英文入库，同时写入一行任务；翻译工作线程成功写回中文后删除该行。
+ * 工作线程领取任务时把nextAttemptAt推后一个租约时间，进程崩溃后租约到期，任务会被重新领取
+ */
+@Entity
+@Table(name = "translation_task", indexes = {
+    @Index(name = "idx_translation_task_next_attempt", columnList = "nextAttemptAt")
+})
+public class TranslationTask implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    @Id
+    private Long newsId;
+    
+    private Instant createdAt;
+    
+    private Instant nextAttemptAt;  // 到期后可以被领取；被领取后为租约到期时间，失败后为退避后的重试时间
+    
+    private Integer attempts;       // 已失败的次数
+    
+    @Column(length = 500)
+    private String lastError;
+
+    // Getters and Setters
+    public Long getNewsId() {
+        return newsId;
+    }
+
+    public void setNewsId(Long newsId) {
+        this.newsId = newsId;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(Instant nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.example.hacker_cnews.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.example.hacker_cnews.entity.BackfillCheckpoint;
+
+@Repository
+public interface BackfillCheckpointRepository extends JpaRepository<BackfillCheckpoint, Long> {
+    List<BackfillCheckpoint> findByCompletedFalseOrderByRangeStartDesc();
+    Optional<BackfillCheckpoint> findTopByOrderByRangeEndDesc();
+    long countByCompletedTrue();
+} 
\ No newline at end of file
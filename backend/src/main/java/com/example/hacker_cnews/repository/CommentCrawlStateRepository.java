@@ -0,0 +1,17 @@
+package com.example.hacker_cnews.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.hacker_cnews.entity.CommentCrawlState;
+
+@Repository
+public interface CommentCrawlStateRepository extends JpaRepository<CommentCrawlState, Long> {
+    @Modifying
+    @Transactional
+    @Query("delete from CommentCrawlState s where s.storyId not in (select n.id from NewsItem n)")
+    int deleteOrphaned();
+} 
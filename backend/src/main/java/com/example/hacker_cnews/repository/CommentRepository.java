@@ -0,0 +1,27 @@
+package com.example.hacker_cnews.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.hacker_cnews.entity.Comment;
+
+@Repository
+public interface CommentRepository extends JpaRepository<Comment, Long> {
+    List<Comment> findByStoryIdOrderByDepthAscIdAsc(Long storyId);
+    long countByStoryId(Long storyId);
+    
+    @Query("select c.id from Comment c where c.storyId = :storyId")
+    List<Long> findIdsByStoryId(@Param("storyId") Long storyId);
+    
+    // 删除所属新闻已被清理的评论
+    @Modifying
+    @Transactional
+    @Query("delete from Comment c where c.storyId not in (select n.id from NewsItem n)")
+    int deleteOrphaned();
+} 
@@ -0,0 +1,10 @@
+package com.example.hacker_cnews.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.example.hacker_cnews.entity.ItemRefreshState;
+
+@Repository
+public interface ItemRefreshStateRepository extends JpaRepository<ItemRefreshState, Long> {
+} 
@@ -1,14 +1,96 @@
 package com.example.hacker_cnews.repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.hacker_cnews.entity.NewsItem;
 
 @Repository
 public interface NewsItemRepository extends JpaRepository<NewsItem, Long> {
     List<NewsItem> findTop30ByOrderByTimeDesc();
-    List<NewsItem> findTop50ByOrderByTimeDesc();
+    // 公开的最新新闻列表，排除历史回填的记录（回填的记录没有排名和翻译，且按时间总是最新）
+    List<NewsItem> findTop50ByBackfilledIsNullOrBackfilledFalseOrderByTimeDesc();
+    
+    // 历史回填的记录，按时间倒序分页
+    List<NewsItem> findByBackfilledTrueOrderByTimeDesc(Pageable pageable);
+    
+    // 热门列表中的记录（排除历史回填的记录）
+    List<NewsItem> findByBackfilledIsNullOrBackfilledFalse(Sort sort);
+    long countByBackfilledIsNullOrBackfilledFalse();
+    
+    // 只查询已存在的ID，不加载整条记录
+    @Query("select n.id from NewsItem n where n.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Iterable<Long> ids);
+    
+    // 按当前排名取前若干条新闻
+    List<NewsItem> findByRankIsNotNullOrderByRankAsc(Pageable pageable);
+    
+    // 首页：热门列表中有排名的记录，排名相同时取最近更新的
+    @Query("select n from NewsItem n where n.rank is not null and (n.backfilled is null or n.backfilled = false) " +
+           "order by n.rank asc, n.lastUpdated desc")
+    List<NewsItem> findRankedOrderByRank(Pageable pageable);
+    
+    // 缺少标题、排名或分数的记录（历史回填的记录本身没有排名，不在其中）
+    @Query("select n from NewsItem n where (n.backfilled is null or n.backfilled = false) " +
+           "and (n.titleEn is null or trim(n.titleEn) = '' or n.rank is null or n.score is null)")
+    List<NewsItem> findIncomplete();
+    
+    // 热门列表中已有中文标题或正文的记录（历史回填的记录不翻译）
+    @Query("select n from NewsItem n where (n.backfilled is null or n.backfilled = false) " +
+           "and (n.titleZh is not null or n.textZh is not null)")
+    List<NewsItem> findTranslated();
+    
+    // 热门列表中非空的英文标题，按新闻时间正序；只查询标题列
+    @Query("select n.titleEn from NewsItem n where (n.backfilled is null or n.backfilled = false) " +
+           "and n.titleEn is not null and trim(n.titleEn) <> '' order by n.time asc")
+    List<String> findTitlesOrderByTimeAsc();
+    
+    // 仅更新排名，不需要重新获取整条记录
+    @Modifying
+    @Transactional
+    @Query("update NewsItem n set n.rank = :rank, n.lastUpdated = :lastUpdated where n.id = :id")
+    int updateRank(@Param("id") Long id, @Param("rank") Integer rank, @Param("lastUpdated") Instant lastUpdated);
+    
+    // 只写刷新路径负责的字段，不覆盖翻译队列和按需翻译并发写入的中文标题和正文
+    @Modifying
+    @Transactional
+    @Query("update NewsItem n set n.rank = :rank, n.score = :score, n.titleEn = :titleEn, n.url = :url, " +
+           "n.backfilled = :backfilled, n.lastUpdated = :lastUpdated where n.id = :id")
+    int updateRefreshedFields(@Param("id") Long id, @Param("rank") Integer rank, @Param("score") Integer score,
+            @Param("titleEn") String titleEn, @Param("url") String url, @Param("backfilled") Boolean backfilled,
+            @Param("lastUpdated") Instant lastUpdated);
+    
+    // 仅写回翻译结果，参数为null的字段保持不变，不覆盖翻译期间更新的排名和分数
+    @Modifying
+    @Transactional
+    @Query("update NewsItem n set n.titleZh = coalesce(:titleZh, n.titleZh), n.textZh = coalesce(:textZh, n.textZh) where n.id = :id")
+    int updateTranslation(@Param("id") Long id, @Param("titleZh") String titleZh, @Param("textZh") String textZh);
+    
+    // 标题或正文保存的是翻译失败提示（failures中的文本或以failurePrefix匹配的文本）的记录；
+    // 历史回填的记录不翻译，不在扫描范围内
+    @Query("select n.id from NewsItem n where (n.backfilled is null or n.backfilled = false) " +
+           "and (n.titleZh in :failures or n.textZh in :failures " +
+           "or n.titleZh like :failurePrefix or n.textZh like :failurePrefix)")
+    List<Long> findIdsWithTranslationFailures(@Param("failures") Collection<String> failures,
+            @Param("failurePrefix") String failurePrefix);
+    
+    // 把保存的翻译失败提示清为null，恢复为未翻译状态
+    @Modifying
+    @Transactional
+    @Query("update NewsItem n set " +
+           "n.titleZh = case when n.titleZh in :failures or n.titleZh like :failurePrefix then null else n.titleZh end, " +
+           "n.textZh = case when n.textZh in :failures or n.textZh like :failurePrefix then null else n.textZh end " +
+           "where n.id in :ids")
+    int clearTranslationFailures(@Param("ids") Collection<Long> ids, @Param("failures") Collection<String> failures,
+            @Param("failurePrefix") String failurePrefix);
 } 
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.example.hacker_cnews.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.hacker_cnews.entity.TranslationMemory;
+
+@Repository
+public interface TranslationMemoryRepository extends JpaRepository<TranslationMemory, String> {
+    List<TranslationMemory> findByOrderByLastUsedAtDesc(Pageable pageable);
+    
+    @Modifying
+    @Transactional
+    @Query("update TranslationMemory t set t.lastUsedAt = :usedAt, t.hitCount = coalesce(t.hitCount, 0) + 1 where t.sourceKey = :sourceKey")
+    int markUsed(@Param("sourceKey") String sourceKey, @Param("usedAt") Instant usedAt);
+} 
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.example.hacker_cnews.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.hacker_cnews.entity.TranslationTask;
+
+@Repository
+public interface TranslationTaskRepository extends JpaRepository<TranslationTask, Long> {
+    // 已到期的任务，最早到期的在前
+    List<TranslationTask> findByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(Instant now, Pageable pageable);
+    
+    long countByNextAttemptAtLessThanEqual(Instant now);
+    
+    // 领取任务：只有仍然到期（没有被其他工作线程或节点领取）时才把下次尝试时间推后到租约到期，返回1表示领取成功
+    @Modifying
+    @Transactional
+    @Query("update TranslationTask t set t.nextAttemptAt = :leaseUntil where t.newsId = :newsId and t.nextAttemptAt <= :now")
+    int claim(@Param("newsId") Long newsId, @Param("now") Instant now, @Param("leaseUntil") Instant leaseUntil);
+    
+    @Modifying
+    @Transactional
+    @Query("delete from TranslationTask t where t.newsId in :newsIds")
+    int deleteByNewsIds(@Param("newsIds") Iterable<Long> newsIds);
+} 
\ No newline at end of file
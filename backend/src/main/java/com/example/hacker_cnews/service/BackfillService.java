@@ -0,0 +1,340 @@
+package com.example.hacker_cnews.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.example.hacker_cnews.config.HackerNewsConfig;
+import com.example.hacker_cnews.entity.BackfillCheckpoint;
+import com.example.hacker_cnews.entity.NewsItem;
+import com.example.hacker_cnews.repository.BackfillCheckpointRepository;
+import com.example.hacker_cnews.repository.NewsItemRepository;
+import com.example.hacker_cnews.service.HackerNewsService.HackerNewsItem;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 历史回填服务
+ * 以/maxitem.json为上界，将ID空间切分为多个区间并行抓取，
+ * 每个区间持久化检查点，重启后从中断位置继续；
+ * 获取失败（网络错误、超时、熔断）的ID记入检查点，下次抓取该区间时先重试
+ */
+@Service
+public class BackfillService {
+    private static final Logger logger = LoggerFactory.getLogger(BackfillService.class);
+    
+    // 热门更新周期运行时，回填任务的让路检查间隔
+    private static final Duration YIELD_INTERVAL = Duration.ofSeconds(1);
+    
+    private final HackerNewsService hackerNewsService;
+    private final NewsUpdateService newsUpdateService;
+    private final NewsItemRepository newsItemRepository;
+    private final BackfillCheckpointRepository checkpointRepository;
+    private final HackerNewsConfig hackerNewsConfig;
+    
+    // 运行时可调整的全局速率（条/秒）
+    private volatile double itemsPerSecond;
+    private volatile Disposable running;
+    private volatile Instant startedAt;
+    
+    // 吞吐量统计
+    private final AtomicLong itemsProcessed = new AtomicLong();
+    private final AtomicLong itemsStored = new AtomicLong();
+    private final AtomicLong itemsFailed = new AtomicLong();
+    private final AtomicLong itemsRecovered = new AtomicLong();
+    
+    public BackfillService(
+            HackerNewsService hackerNewsService,
+            NewsUpdateService newsUpdateService,
+            NewsItemRepository newsItemRepository,
+            BackfillCheckpointRepository checkpointRepository,
+            HackerNewsConfig hackerNewsConfig) {
+        this.hackerNewsService = hackerNewsService;
+        this.newsUpdateService = newsUpdateService;
+        this.newsItemRepository = newsItemRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.hackerNewsConfig = hackerNewsConfig;
+        this.itemsPerSecond = hackerNewsConfig.getBackfillItemsPerSecond();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnBoot() {
+        if (hackerNewsConfig.isBackfillEnabled()) {
+            logger.info("已启用历史回填，应用启动后自动开始");
+            start();
+        }
+    }
+    
+    /**
+     * 开始（或继续）回填
+     * 
+     * @return 如果已在运行则返回false
+     */
+    public synchronized boolean start() {
+        if (isRunning()) {
+            logger.info("历史回填已在运行中");
+            return false;
+        }
+        
+        itemsProcessed.set(0);
+        itemsStored.set(0);
+        itemsFailed.set(0);
+        itemsRecovered.set(0);
+        startedAt = Instant.now();
+        
+        running = hackerNewsService.getMaxItem()
+                .publishOn(Schedulers.boundedElastic())
+                .map(this::planRanges)
+                .flatMapMany(ranges -> {
+                    logger.info("历史回填开始，待处理区间 {} 个，并行度 {}", 
+                        ranges.size(), hackerNewsConfig.getBackfillParallelism());
+                    return Flux.fromIterable(ranges)
+                        .flatMap(this::crawlRange, Math.max(1, hackerNewsConfig.getBackfillParallelism()));
+                })
+                .doFinally(signal -> logger.info("历史回填结束 ({}), 处理 {} 条, 保存 {} 条, 失败 {} 条", 
+                    signal, itemsProcessed.get(), itemsStored.get(), itemsFailed.get()))
+                .subscribe(
+                    checkpoint -> {
+                        if (Boolean.TRUE.equals(checkpoint.getCompleted())) {
+                            logger.info("区间 [{}, {}] 回填完成，保存 {} 条", 
+                                checkpoint.getRangeStart(), checkpoint.getRangeEnd(), checkpoint.getItemsStored());
+                        } else {
+                            logger.warn("区间 [{}, {}] 已抓取到末尾，仍有ID获取失败，下次回填时重试: {}", 
+                                checkpoint.getRangeStart(), checkpoint.getRangeEnd(), checkpoint.getFailedIds());
+                        }
+                    },
+                    error -> logger.error("历史回填过程中出错: {}", error.getMessage(), error));
+        return true;
+    }
+    
+    /**
+     * 停止回填，已保存的检查点保证下次可以继续
+     */
+    public synchronized void stop() {
+        if (running != null && !running.isDisposed()) {
+            logger.info("停止历史回填");
+            running.dispose();
+        }
+    }
+    
+    public boolean isRunning() {
+        return running != null && !running.isDisposed();
+    }
+    
+    /**
+     * 调整全局抓取速率
+     */
+    public void setItemsPerSecond(double itemsPerSecond) {
+        if (itemsPerSecond <= 0) {
+            throw new IllegalArgumentException("抓取速率必须大于0");
+        }
+        logger.info("历史回填速率调整为 {} 条/秒", itemsPerSecond);
+        this.itemsPerSecond = itemsPerSecond;
+    }
+    
+    /**
+     * 回填状态和吞吐量
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("running", isRunning());
+        status.put("itemsPerSecondLimit", itemsPerSecond);
+        status.put("itemsProcessed", itemsProcessed.get());
+        status.put("itemsStored", itemsStored.get());
+        status.put("itemsFailed", itemsFailed.get());
+        status.put("itemsRecovered", itemsRecovered.get());
+        
+        double throughput = 0;
+        if (startedAt != null) {
+            double elapsedSeconds = Duration.between(startedAt, Instant.now()).toMillis() / 1000.0;
+            if (elapsedSeconds > 0) {
+                throughput = itemsProcessed.get() / elapsedSeconds;
+            }
+            status.put("startedAt", startedAt.toString());
+        }
+        status.put("throughputItemsPerSecond", Math.round(throughput * 100) / 100.0);
+        status.put("pendingRanges", checkpointRepository.findByCompletedFalseOrderByRangeStartDesc().size());
+        status.put("completedRanges", checkpointRepository.countByCompletedTrue());
+        return status;
+    }
+    
+    /**
+     * 规划待抓取的区间：为[下界, maxItem]中尚未规划的部分创建检查点，
+     * 返回所有未完成的区间，新的区间优先
+     */
+    private List<BackfillCheckpoint> planRanges(Long maxItem) {
+        long rangeSize = Math.max(1, hackerNewsConfig.getBackfillRangeSize());
+        long lowerBound = Math.max(1, maxItem - hackerNewsConfig.getBackfillDepth() + 1);
+        
+        // 已规划过的区间不再重复创建
+        long plannedUpTo = checkpointRepository.findTopByOrderByRangeEndDesc()
+                .map(BackfillCheckpoint::getRangeEnd)
+                .orElse(lowerBound - 1);
+        long from = Math.max(lowerBound, plannedUpTo + 1);
+        
+        List<BackfillCheckpoint> newRanges = new ArrayList<>();
+        for (long start = from; start <= maxItem; start += rangeSize) {
+            BackfillCheckpoint checkpoint = new BackfillCheckpoint();
+            checkpoint.setRangeStart(start);
+            checkpoint.setRangeEnd(Math.min(start + rangeSize - 1, maxItem));
+            checkpoint.setNextId(start);
+            checkpoint.setCompleted(false);
+            checkpoint.setItemsStored(0L);
+            checkpoint.setUpdatedAt(Instant.now());
+            newRanges.add(checkpoint);
+        }
+        if (!newRanges.isEmpty()) {
+            checkpointRepository.saveAll(newRanges);
+            logger.info("新规划 {} 个回填区间，覆盖ID [{}, {}]", newRanges.size(), from, maxItem);
+        }
+        
+        return checkpointRepository.findByCompletedFalseOrderByRangeStartDesc();
+    }
+    
+    /**
+     * 顺序抓取一个区间，定期保存检查点
+     * 先重试上次记录的失败ID，再从nextId继续；仍有失败ID时区间不标记为完成
+     */
+    private Mono<BackfillCheckpoint> crawlRange(BackfillCheckpoint checkpoint) {
+        long from = checkpoint.getNextId();
+        long to = checkpoint.getRangeEnd();
+        int checkpointEvery = Math.max(1, hackerNewsConfig.getBackfillCheckpointEvery());
+        // concatMap保证同一区间内顺序处理，这里不需要额外同步
+        Set<Long> failedIds = parseIds(checkpoint.getFailedIds());
+        List<Long> retryIds = new ArrayList<>(failedIds);
+        logger.info("开始回填区间 [{}, {}]，从ID {} 继续，待重试 {} 个", 
+            checkpoint.getRangeStart(), to, from, retryIds.size());
+        
+        Flux<Long> remaining = from > to ? Flux.empty() :
+                Flux.range(0, (int) (to - from + 1)).map(offset -> from + offset);
+        
+        return Flux.concat(Flux.fromIterable(retryIds), remaining)
+                .concatMap(id -> fetchOne(id, checkpoint)
+                    .doOnNext(fetched -> {
+                        itemsProcessed.incrementAndGet();
+                        if (fetched) {
+                            if (failedIds.remove(id)) {
+                                itemsRecovered.incrementAndGet();
+                            }
+                        } else {
+                            itemsFailed.incrementAndGet();
+                            failedIds.add(id);
+                        }
+                        // 失败ID都小于from（记录时nextId已越过它们），只有新抓取的ID推进检查点
+                        if (id >= from && (id - from + 1) % checkpointEvery == 0) {
+                            saveCheckpoint(checkpoint, id + 1, false, failedIds);
+                        }
+                    }))
+                .then(Mono.fromCallable(() -> saveCheckpoint(checkpoint, to + 1, failedIds.isEmpty(), failedIds))
+                    .subscribeOn(Schedulers.boundedElastic()));
+    }
+    
+    /**
+     * 抓取并保存单个ID
+     * 
+     * @return 获取失败（需要重试）时返回false；条目不存在或不是新闻都算处理成功
+     */
+    private Mono<Boolean> fetchOne(long id, BackfillCheckpoint checkpoint) {
+        return throttle()
+                .then(hackerNewsService.getItemById(id))
+                .publishOn(Schedulers.boundedElastic())
+                .map(hnItem -> {
+                    if (hnItem.isFetchFailed()) {
+                        logger.warn("回填ID {} 获取失败，稍后重试", id);
+                        return false;
+                    }
+                    storeIfStory(hnItem, checkpoint);
+                    return true;
+                })
+                .onErrorResume(e -> {
+                    logger.error("回填ID {} 时出错: {}", id, e.getMessage());
+                    return Mono.just(false);
+                });
+    }
+    
+    /**
+     * 按全局速率平摊到每个并行区间的延迟，并在热门更新周期运行时让路
+     */
+    private Mono<Void> throttle() {
+        long perRangeDelayMillis = (long) (1000.0 * Math.max(1, hackerNewsConfig.getBackfillParallelism()) / itemsPerSecond);
+        return Mono.delay(Duration.ofMillis(perRangeDelayMillis))
+                .then(waitForLiveCycle());
+    }
+    
+    private Mono<Void> waitForLiveCycle() {
+        return Mono.defer(() -> newsUpdateService.isUpdateInProgress() ?
+                Mono.delay(YIELD_INTERVAL).then(waitForLiveCycle()) :
+                Mono.empty());
+    }
+    
+    /**
+     * 只保存带标题的条目（story/job/poll），评论等直接跳过
+     * 回填的记录只保存英文字段，不占用翻译配额
+     */
+    private void storeIfStory(HackerNewsItem hnItem, BackfillCheckpoint checkpoint) {
+        if (hnItem == null || hnItem.getId() == null || hnItem.getTitle() == null) {
+            return;
+        }
+        if (newsItemRepository.existsById(hnItem.getId())) {
+            return;
+        }
+        
+        NewsItem newsItem = new NewsItem();
+        newsItem.setId(hnItem.getId());
+        newsItem.setTitleEn(hnItem.getTitle());
+        newsItem.setUrl(hnItem.getUrl());
+        newsItem.setTextEn(hnItem.getText());
+        newsItem.setType(hnItem.getType());
+        newsItem.setTime(hnItem.getTime());
+        newsItem.setScore(hnItem.getScore());
+        newsItem.setCreatedAt(Instant.now());
+        newsItem.setLastUpdated(hnItem.getTime() != null ? Instant.ofEpochSecond(hnItem.getTime()) : Instant.now());
+        newsItem.setBackfilled(true);
+        newsItemRepository.save(newsItem);
+        
+        itemsStored.incrementAndGet();
+        synchronized (checkpoint) {
+            checkpoint.setItemsStored(checkpoint.getItemsStored() + 1);
+        }
+    }
+    
+    private BackfillCheckpoint saveCheckpoint(BackfillCheckpoint checkpoint, long nextId, boolean completed, Set<Long> failedIds) {
+        synchronized (checkpoint) {
+            checkpoint.setNextId(nextId);
+            checkpoint.setCompleted(completed);
+            checkpoint.setFailedIds(failedIds.isEmpty() ? null : 
+                failedIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+            checkpoint.setUpdatedAt(Instant.now());
+            return checkpointRepository.save(checkpoint);
+        }
+    }
+    
+    private static Set<Long> parseIds(String ids) {
+        Set<Long> result = new TreeSet<>();
+        if (ids == null || ids.isBlank()) {
+            return result;
+        }
+        for (String id : ids.split(",")) {
+            if (!id.isBlank()) {
+                result.add(Long.parseLong(id.trim()));
+            }
+        }
+        return result;
+    }
+} 
\ No newline at end of file
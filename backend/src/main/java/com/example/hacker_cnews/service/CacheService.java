@@ -1,14 +1,46 @@
 package com.example.hacker_cnews.service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Service;
 
 import com.example.hacker_cnews.entity.NewsItem;
+import com.example.hacker_cnews.entity.TranslationMemory;
+import com.example.hacker_cnews.repository.TranslationMemoryRepository;
+import com.example.hacker_cnews.util.TextDigest;
+import com.example.hacker_cnews.util.ValueCompressor;
+import com.example.hacker_cnews.util.WeightedLruCache;
+
+import jakarta.annotation.PostConstruct;
 
 import lombok.RequiredArgsConstructor;
 
@@ -22,6 +54,12 @@ public class CacheService {
     
     private final RedisTemplate<String, NewsItem> newsItemRedisTemplate;
     
+    private final RedisTemplate<String, byte[]> translationRedisTemplate;
+    
+    private final RedisMessageListenerContainer listenerContainer;
+    
+    private final TranslationMemoryRepository translationMemoryRepository;
+    
     // 缓存有效期设置 (24小时)
     private static final long CACHE_TTL = 24 * 60 * 60;
     
@@ -29,6 +67,85 @@ public class CacheService {
     private static final String TRANSLATION_PREFIX = "translation:";
     private static final String NEWS_PREFIX = "news:";
     
+    // 翻译缓存键为 translation:语言对:规范化原文的SHA-256摘要，旧格式的键直接使用原文
+    private static final String TRANSLATION_PAIR = "en-zh:";
+    private static final Pattern HASHED_TRANSLATION_KEY =
+            Pattern.compile(Pattern.quote(TRANSLATION_PREFIX + TRANSLATION_PAIR) + "[0-9a-f]{64}");
+    
+    // 翻译结果的UTF-8字节数达到该值时压缩保存
+    @Value("${cache.translation.compress-threshold-bytes:512}")
+    private int translationCompressThreshold;
+    
+    // 新键未命中时是否再查旧格式的键（迁移完成后自动停止）
+    @Value("${cache.translation.legacy-fallback:true}")
+    private volatile boolean translationLegacyFallback;
+    
+    // 迁移完成的标记，重启后据此保持回退查找关闭；不使用translation:前缀，避免被迁移扫描和清空缓存带走
+    private static final String LEGACY_MIGRATED_KEY = "cache:translation:legacy-migrated";
+    
+    // 进程内一级翻译缓存，位于Redis之前；按条目数和估算的堆内存字节数淘汰
+    @Value("${cache.translation.l1.max-entries:10000}")
+    private int translationL1MaxEntries;
+    
+    @Value("${cache.translation.l1.max-weight-bytes:16777216}")
+    private long translationL1MaxWeightBytes;
+    
+    @Value("${cache.translation.l1.ttl-ms:3600000}")
+    private long translationL1TtlMillis;
+    
+    private WeightedLruCache<String, String> translationL1;
+    
+    // 一级缓存未命中后Redis的命中情况
+    private final AtomicLong translationRedisHits = new AtomicLong();
+    private final AtomicLong translationRedisMisses = new AtomicLong();
+    
+    // 持久化的翻译记忆：Redis未命中时读取，新翻译写入，启动时预热最近使用的条目
+    @Value("${cache.translation.memory.enabled:true}")
+    private boolean translationMemoryEnabled;
+    
+    @Value("${cache.translation.memory.warm-size:2000}")
+    private int translationMemoryWarmSize;
+    
+    private final AtomicLong translationMemoryHits = new AtomicLong();
+    private final AtomicLong translationMemoryMisses = new AtomicLong();
+    private volatile int translationMemoryWarmed;
+    
+    // 拒绝写入和读取时删除的翻译失败提示
+    private final AtomicLong translationFailuresRejected = new AtomicLong();
+    private final AtomicLong translationFailuresEvicted = new AtomicLong();
+    
+    // 翻译缓存写入或清空时通知其他节点丢弃一级缓存，消息格式为 "节点ID|缓存键"，缓存键为*表示全部
+    private static final String TRANSLATION_INVALIDATION_CHANNEL = "cache:translation:invalidate";
+    private static final String INVALIDATE_ALL = "*";
+    private final String nodeId = UUID.randomUUID().toString();
+    
+    @PostConstruct
+    public void initTranslationL1() {
+        // 键是固定长度的摘要，权重按译文的UTF-16字节数加上键和条目的固定开销估算
+        translationL1 = new WeightedLruCache<>(translationL1MaxEntries, translationL1MaxWeightBytes,
+            Duration.ofMillis(translationL1TtlMillis), value -> 2L * value.length() + 160);
+        try {
+            listenerContainer.addMessageListener(this::onTranslationInvalidation, 
+                new ChannelTopic(TRANSLATION_INVALIDATION_CHANNEL));
+        } catch (Exception e) {
+            logger.error("订阅翻译缓存失效通知失败: {}", e.getMessage());
+        }
+        if (translationLegacyFallback) {
+            try {
+                if (Boolean.TRUE.equals(redisTemplate.hasKey(LEGACY_MIGRATED_KEY))) {
+                    translationLegacyFallback = false;
+                    logger.info("旧格式翻译缓存已迁移，不再回退查找旧键");
+                }
+            } catch (Exception e) {
+                logger.error("读取翻译缓存迁移标记失败: {}", e.getMessage());
+            }
+        }
+    }
+    
+    // 新闻项可变字段（排名、分数、标题、URL）的指纹，Redis中以hash存储，本地保留一份副本
+    private static final String FINGERPRINT_KEY = NEWS_PREFIX + "fingerprints";
+    private final Map<Long, Long> itemFingerprints = new ConcurrentHashMap<>();
+    
     /**
      * 缓存翻译结果
      * 
@@ -36,19 +153,383 @@ public class CacheService {
      * @param translation 翻译的结果
      */
     public void cacheTranslation(String key, String translation) {
-        String cacheKey = TRANSLATION_PREFIX + key;
-        redisTemplate.opsForValue().set(cacheKey, translation, CACHE_TTL, TimeUnit.SECONDS);
+        // 翻译失败不是译文，缓存后会一直返回给后续请求
+        if (TranslationService.isUnavailable(translation)) {
+            translationFailuresRejected.incrementAndGet();
+            logger.warn("拒绝缓存翻译失败提示: {}", translation);
+            return;
+        }
+        String cacheKey = translationKey(key);
+        translationRedisTemplate.opsForValue().set(cacheKey, 
+            ValueCompressor.encode(translation, translationCompressThreshold), CACHE_TTL, TimeUnit.SECONDS);
+        translationL1.put(cacheKey, translation);
+        publishTranslationInvalidation(cacheKey);
+        saveTranslationMemory(key, translation);
+    }
+    
+    /**
+     * 写入持久化的翻译记忆，数据库出错时只记录日志，不影响缓存
+     */
+    private void saveTranslationMemory(String source, String translation) {
+        if (!translationMemoryEnabled) {
+            return;
+        }
+        try {
+            String memoryKey = translationMemoryKey(source);
+            Instant now = Instant.now();
+            TranslationMemory memory = translationMemoryRepository.findById(memoryKey).orElseGet(() -> {
+                TranslationMemory created = new TranslationMemory();
+                created.setSourceKey(memoryKey);
+                created.setCreatedAt(now);
+                created.setHitCount(0L);
+                return created;
+            });
+            memory.setSourceText(source);
+            memory.setTranslation(translation);
+            memory.setLastUsedAt(now);
+            translationMemoryRepository.save(memory);
+        } catch (Exception e) {
+            logger.error("保存翻译记忆时出错: {}", e.getMessage());
+        }
     }
     
     /**
      * 获取缓存的翻译结果
+     * 先查进程内一级缓存，未命中再查Redis并回填一级缓存；Redis未命中时查数据库中的翻译记忆并回填Redis；
+     * 都未命中时查找Redis中旧格式的键，找到则顺便迁移；
+     * 旧版本缓存的翻译失败提示视为未命中，并从各层删除
      * 
      * @param key 翻译的原文
      * @return 缓存的翻译结果，如果没有则返回null
      */
     public String getCachedTranslation(String key) {
-        String cacheKey = TRANSLATION_PREFIX + key;
-        return redisTemplate.opsForValue().get(cacheKey);
+        String translation = lookupTranslation(key);
+        if (translation != null && TranslationService.isUnavailable(translation)) {
+            evictTranslationFailure(key);
+            return null;
+        }
+        return translation;
+    }
+    
+    /**
+     * 从所有层删除缓存的翻译失败提示
+     */
+    private void evictTranslationFailure(String key) {
+        String cacheKey = translationKey(key);
+        translationRedisTemplate.delete(cacheKey);
+        translationL1.invalidate(cacheKey);
+        publishTranslationInvalidation(cacheKey);
+        redisTemplate.delete(TRANSLATION_PREFIX + key);
+        if (translationMemoryEnabled) {
+            try {
+                translationMemoryRepository.deleteById(translationMemoryKey(key));
+            } catch (Exception e) {
+                logger.error("删除翻译记忆时出错: {}", e.getMessage());
+            }
+        }
+        translationFailuresEvicted.incrementAndGet();
+        logger.warn("删除缓存的翻译失败提示，原文摘要: {}", cacheKey);
+    }
+    
+    private String lookupTranslation(String key) {
+        String cacheKey = translationKey(key);
+        String local = translationL1.get(cacheKey);
+        if (local != null) {
+            return local;
+        }
+        
+        byte[] stored = translationRedisTemplate.opsForValue().get(cacheKey);
+        String translation = stored != null ? ValueCompressor.decode(stored) : null;
+        if (translation != null) {
+            translationRedisHits.incrementAndGet();
+            translationL1.put(cacheKey, translation);
+            return translation;
+        }
+        translationRedisMisses.incrementAndGet();
+        
+        translation = loadTranslationMemory(key, cacheKey);
+        if (translation != null) {
+            return translation;
+        }
+        
+        if (translationLegacyFallback) {
+            String legacyKey = TRANSLATION_PREFIX + key;
+            String legacy = redisTemplate.opsForValue().get(legacyKey);
+            if (legacy != null) {
+                cacheTranslation(key, legacy);
+                redisTemplate.delete(legacyKey);
+                return legacy;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * 从翻译记忆读取，命中时回填Redis和一级缓存
+     */
+    private String loadTranslationMemory(String source, String cacheKey) {
+        if (!translationMemoryEnabled) {
+            return null;
+        }
+        try {
+            TranslationMemory memory = translationMemoryRepository.findById(translationMemoryKey(source)).orElse(null);
+            if (memory == null || memory.getTranslation() == null) {
+                translationMemoryMisses.incrementAndGet();
+                return null;
+            }
+            translationMemoryHits.incrementAndGet();
+            translationMemoryRepository.markUsed(memory.getSourceKey(), Instant.now());
+            translationRedisTemplate.opsForValue().set(cacheKey, 
+                ValueCompressor.encode(memory.getTranslation(), translationCompressThreshold), CACHE_TTL, TimeUnit.SECONDS);
+            translationL1.put(cacheKey, memory.getTranslation());
+            return memory.getTranslation();
+        } catch (Exception e) {
+            logger.error("读取翻译记忆时出错: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * 启动时用最近使用的翻译记忆预热一级缓存和Redis（Redis中已有的键不覆盖）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmTranslationCache() {
+        if (!translationMemoryEnabled || translationMemoryWarmSize <= 0) {
+            return;
+        }
+        try {
+            List<TranslationMemory> recent = translationMemoryRepository.findByOrderByLastUsedAtDesc(
+                PageRequest.of(0, translationMemoryWarmSize));
+            // 按从旧到新的顺序放入一级缓存，最近使用的条目最后被淘汰
+            for (int i = recent.size() - 1; i >= 0; i--) {
+                TranslationMemory memory = recent.get(i);
+                if (memory.getTranslation() != null) {
+                    translationL1.put(TRANSLATION_PREFIX + memory.getSourceKey(), memory.getTranslation());
+                }
+            }
+            translationRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (TranslationMemory memory : recent) {
+                    if (memory.getTranslation() != null) {
+                        connection.stringCommands().set(
+                            (TRANSLATION_PREFIX + memory.getSourceKey()).getBytes(StandardCharsets.UTF_8),
+                            ValueCompressor.encode(memory.getTranslation(), translationCompressThreshold),
+                            Expiration.seconds(CACHE_TTL),
+                            RedisStringCommands.SetOption.ifAbsent());
+                    }
+                }
+                return null;
+            });
+            translationMemoryWarmed = recent.size();
+            logger.info("已用 {} 条翻译记忆预热翻译缓存", recent.size());
+        } catch (Exception e) {
+            logger.error("预热翻译缓存时出错: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * 通知其他节点丢弃一级缓存中的条目；通知失败不影响本次写入，其他节点的条目最迟在一级缓存过期时更新
+     */
+    private void publishTranslationInvalidation(String cacheKey) {
+        try {
+            redisTemplate.convertAndSend(TRANSLATION_INVALIDATION_CHANNEL, nodeId + "|" + cacheKey);
+        } catch (Exception e) {
+            logger.warn("发送翻译缓存失效通知失败: {}", e.getMessage());
+        }
+    }
+    
+    private void onTranslationInvalidation(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf('|');
+        if (separator < 0 || body.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        String cacheKey = body.substring(separator + 1);
+        if (INVALIDATE_ALL.equals(cacheKey)) {
+            translationL1.invalidateAll();
+        } else {
+            translationL1.invalidate(cacheKey);
+        }
+    }
+    
+    /**
+     * 翻译缓存各层的命中情况：一级缓存命中不产生网络请求，Redis只统计一级缓存未命中的查询，
+     * 翻译记忆只统计Redis未命中的查询
+     */
+    public Map<String, Object> getTranslationCacheStats() {
+        Map<String, Object> l1 = translationL1.getStats();
+        long l1Hits = (Long) l1.get("hits");
+        long redisHits = translationRedisHits.get();
+        long redisMisses = translationRedisMisses.get();
+        long memoryHits = translationMemoryHits.get();
+        long memoryMisses = translationMemoryMisses.get();
+        long lookups = l1Hits + redisHits + redisMisses;
+        
+        Map<String, Object> redis = new HashMap<>();
+        redis.put("hits", redisHits);
+        redis.put("misses", redisMisses);
+        redis.put("hitRatio", redisHits + redisMisses > 0 ? 
+            Math.round(redisHits * 10000.0 / (redisHits + redisMisses)) / 10000.0 : 0);
+        
+        Map<String, Object> memory = new HashMap<>();
+        memory.put("enabled", translationMemoryEnabled);
+        memory.put("hits", memoryHits);
+        memory.put("misses", memoryMisses);
+        memory.put("hitRatio", memoryHits + memoryMisses > 0 ? 
+            Math.round(memoryHits * 10000.0 / (memoryHits + memoryMisses)) / 10000.0 : 0);
+        memory.put("warmed", translationMemoryWarmed);
+        
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("l1", l1);
+        stats.put("redis", redis);
+        stats.put("mysql", memory);
+        stats.put("lookups", lookups);
+        stats.put("failuresRejected", translationFailuresRejected.get());
+        stats.put("failuresEvicted", translationFailuresEvicted.get());
+        stats.put("overallHitRatio", lookups > 0 ? 
+            Math.round((l1Hits + redisHits + memoryHits) * 10000.0 / lookups) / 10000.0 : 0);
+        return stats;
+    }
+    
+    /**
+     * 翻译缓存键：语言对加规范化原文的摘要，长度固定
+     */
+    static String translationKey(String text) {
+        return TRANSLATION_PREFIX + translationMemoryKey(text);
+    }
+    
+    /**
+     * 翻译记忆的主键，即去掉前缀的翻译缓存键
+     */
+    static String translationMemoryKey(String text) {
+        return TRANSLATION_PAIR + TextDigest.of(text);
+    }
+    
+    /**
+     * 一次性把旧格式（键为原文）的翻译缓存迁移为摘要键和编码后的值，保留剩余有效期
+     * 用SCAN分批遍历，不阻塞Redis；完成后停止旧格式的回退查找
+     * 
+     * @return 迁移的键数量和迁移前后键+值的字节数
+     */
+    public Map<String, Object> migrateLegacyTranslations() {
+        long scanned = 0;
+        long migrated = 0;
+        long alreadyPresent = 0;
+        long expired = 0;
+        long legacyBytes = 0;
+        long hashedBytes = 0;
+        
+        ScanOptions options = ScanOptions.scanOptions().match(TRANSLATION_PREFIX + "*").count(500).build();
+        List<String> legacyKeys = new ArrayList<>();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                String key = cursor.next();
+                scanned++;
+                if (!HASHED_TRANSLATION_KEY.matcher(key).matches()) {
+                    legacyKeys.add(key);
+                }
+            }
+        }
+        
+        for (String legacyKey : legacyKeys) {
+            String translation = redisTemplate.opsForValue().get(legacyKey);
+            Long ttl = redisTemplate.getExpire(legacyKey, TimeUnit.SECONDS);
+            if (translation == null || ttl == null || ttl == -2) {
+                expired++;
+                continue;
+            }
+            String source = legacyKey.substring(TRANSLATION_PREFIX.length());
+            String newKey = translationKey(source);
+            byte[] encoded = ValueCompressor.encode(translation, translationCompressThreshold);
+            Boolean created = translationRedisTemplate.opsForValue()
+                .setIfAbsent(newKey, encoded, ttl > 0 ? ttl : CACHE_TTL, TimeUnit.SECONDS);
+            if (Boolean.TRUE.equals(created)) {
+                migrated++;
+            } else {
+                alreadyPresent++;
+            }
+            redisTemplate.delete(legacyKey);
+            legacyBytes += utf8Length(legacyKey) + utf8Length(translation);
+            hashedBytes += utf8Length(newKey) + encoded.length;
+        }
+        translationLegacyFallback = false;
+        redisTemplate.opsForValue().set(LEGACY_MIGRATED_KEY, Instant.now().toString());
+        
+        logger.info("翻译缓存迁移完成: 扫描 {} 个键, 迁移 {} 个, 新键已存在 {} 个, 已过期 {} 个, 键+值 {} -> {} 字节",
+            scanned, migrated, alreadyPresent, expired, legacyBytes, hashedBytes);
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("scanned", scanned);
+        result.put("legacyKeys", legacyKeys.size());
+        result.put("migrated", migrated);
+        result.put("alreadyPresent", alreadyPresent);
+        result.put("expired", expired);
+        result.put("legacyBytes", legacyBytes);
+        result.put("hashedBytes", hashedBytes);
+        return result;
+    }
+    
+    /**
+     * 比较一组原文/译文在旧格式和新格式下占用的空间
+     * 先按键+值的字节数计算；Redis可用时把两种格式写入临时键，用MEMORY USAGE读取实际占用后删除
+     * 
+     * @param samples 原文到译文的映射
+     */
+    public Map<String, Object> compareTranslationMemory(Map<String, String> samples) {
+        long legacyBytes = 0;
+        long hashedBytes = 0;
+        long maxLegacyKey = 0;
+        long compressedValues = 0;
+        for (Map.Entry<String, String> sample : samples.entrySet()) {
+            String legacyKey = TRANSLATION_PREFIX + sample.getKey();
+            byte[] encoded = ValueCompressor.encode(sample.getValue(), translationCompressThreshold);
+            legacyBytes += utf8Length(legacyKey) + utf8Length(sample.getValue());
+            hashedBytes += utf8Length(translationKey(sample.getKey())) + encoded.length;
+            maxLegacyKey = Math.max(maxLegacyKey, utf8Length(legacyKey));
+            if (ValueCompressor.isCompressed(encoded)) {
+                compressedValues++;
+            }
+        }
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("samples", samples.size());
+        result.put("compressedValues", compressedValues);
+        result.put("maxLegacyKeyBytes", maxLegacyKey);
+        result.put("legacyPayloadBytes", legacyBytes);
+        result.put("hashedPayloadBytes", hashedBytes);
+        
+        try {
+            long legacyMemory = 0;
+            long hashedMemory = 0;
+            int index = 0;
+            for (Map.Entry<String, String> sample : samples.entrySet()) {
+                // 临时键保留原有的长度特征：旧格式带原文，新格式为固定长度
+                String legacyKey = "memtest:" + index + ":" + sample.getKey();
+                String hashedKey = "memtest:" + index + ":" + TRANSLATION_PAIR + TextDigest.of(sample.getKey());
+                index++;
+                redisTemplate.opsForValue().set(legacyKey, sample.getValue(), 60, TimeUnit.SECONDS);
+                translationRedisTemplate.opsForValue().set(hashedKey,
+                    ValueCompressor.encode(sample.getValue(), translationCompressThreshold), 60, TimeUnit.SECONDS);
+                legacyMemory += memoryUsage(legacyKey);
+                hashedMemory += memoryUsage(hashedKey);
+                redisTemplate.delete(List.of(legacyKey, hashedKey));
+            }
+            result.put("legacyRedisMemoryBytes", legacyMemory);
+            result.put("hashedRedisMemoryBytes", hashedMemory);
+        } catch (Exception e) {
+            logger.warn("无法测量Redis内存占用: {}", e.getMessage());
+            result.put("redisMemoryError", e.getMessage());
+        }
+        return result;
+    }
+    
+    private long memoryUsage(String key) {
+        Object usage = redisTemplate.execute((RedisCallback<Object>) (RedisConnection connection) ->
+            connection.execute("MEMORY", "USAGE".getBytes(StandardCharsets.UTF_8), key.getBytes(StandardCharsets.UTF_8)));
+        return usage instanceof Number ? ((Number) usage).longValue() : 0;
+    }
+    
+    private static long utf8Length(String value) {
+        return value.getBytes(StandardCharsets.UTF_8).length;
     }
     
     /**
@@ -73,6 +554,69 @@ public class CacheService {
         return newsItemRedisTemplate.opsForValue().get(cacheKey);
     }
     
+    /**
+     * 获取新闻项的指纹
+     * 优先读取本地副本，本地没有时读取Redis
+     * 
+     * @param id 新闻ID
+     * @return 指纹，如果没有则返回null
+     */
+    public Long getItemFingerprint(Long id) {
+        Long fingerprint = itemFingerprints.get(id);
+        if (fingerprint != null) {
+            return fingerprint;
+        }
+        Object stored = redisTemplate.opsForHash().get(FINGERPRINT_KEY, id.toString());
+        if (stored != null) {
+            fingerprint = Long.valueOf(stored.toString());
+            itemFingerprints.put(id, fingerprint);
+        }
+        return fingerprint;
+    }
+    
+    /**
+     * 保存新闻项的指纹，与已有指纹相同时不写Redis
+     * 
+     * @param id 新闻ID
+     * @param fingerprint 指纹
+     */
+    public void cacheItemFingerprint(Long id, long fingerprint) {
+        Long previous = itemFingerprints.put(id, fingerprint);
+        if (previous == null || previous != fingerprint) {
+            redisTemplate.opsForHash().put(FINGERPRINT_KEY, id.toString(), Long.toString(fingerprint));
+        }
+    }
+    
+    /**
+     * 删除指定新闻项的指纹（新闻从数据库删除时调用）
+     * 
+     * @param ids 新闻ID列表
+     */
+    public void evictItemFingerprints(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        ids.forEach(itemFingerprints::remove);
+        redisTemplate.opsForHash().delete(FINGERPRINT_KEY, ids.stream().map(String::valueOf).toArray());
+    }
+    
+    /**
+     * 清除所有新闻项指纹（数据库被清空时调用，否则指纹未变的新闻不会被重新写入）
+     */
+    public void clearItemFingerprints() {
+        itemFingerprints.clear();
+        redisTemplate.delete(FINGERPRINT_KEY);
+    }
+    
+    /**
+     * 删除缓存的新闻项
+     * 
+     * @param id 新闻ID
+     */
+    public void evictNewsItem(Long id) {
+        newsItemRedisTemplate.delete(NEWS_PREFIX + id);
+    }
+    
     /**
      * 清除所有缓存
      * 包括翻译缓存和新闻项缓存
@@ -83,7 +627,9 @@ public class CacheService {
         int count = 0;
         
         try {
-            // 清除翻译缓存
+            // 清除翻译缓存（包括本节点和其他节点的一级缓存）
+            translationL1.invalidateAll();
+            publishTranslationInvalidation(INVALIDATE_ALL);
             Set<String> translationKeys = redisTemplate.keys(TRANSLATION_PREFIX + "*");
             if (translationKeys != null && !translationKeys.isEmpty()) {
                 redisTemplate.delete(translationKeys);
@@ -91,7 +637,8 @@ public class CacheService {
                 logger.info("已清除{}个翻译缓存", translationKeys.size());
             }
             
-            // 清除新闻项缓存
+            // 清除新闻项缓存（包括指纹）
+            itemFingerprints.clear();
             Set<String> newsKeys = redisTemplate.keys(NEWS_PREFIX + "*");
             if (newsKeys != null && !newsKeys.isEmpty()) {
                 redisTemplate.delete(newsKeys);
@@ -0,0 +1,407 @@
+package com.example.hacker_cnews.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.hacker_cnews.config.HackerNewsConfig;
+import com.example.hacker_cnews.entity.Comment;
+import com.example.hacker_cnews.entity.CommentCrawlState;
+import com.example.hacker_cnews.entity.NewsItem;
+import com.example.hacker_cnews.repository.CommentCrawlStateRepository;
+import com.example.hacker_cnews.repository.CommentRepository;
+import com.example.hacker_cnews.repository.NewsItemRepository;
+import com.example.hacker_cnews.service.HackerNewsService.HackerNewsItem;
+import com.example.hacker_cnews.util.AdaptiveConcurrencyLimiter;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuples;
+
+/**
+ * 评论树抓取服务
+ * 对排名靠前的新闻按层（广度优先）遍历kids，单条新闻内和全局分别限制并发，
+ * 并受深度和数量预算约束；抓取结果边抓边分批写库，不在内存中收集整棵树
+ *
+ * 之后的周期中，评论数（descendants）未变化的新闻直接跳过；
+ * 变化的新闻只沿新增评论和/updates.json中出现的已存评论向下刷新；
+ * 增量遍历后本地评论数仍少于descendants（有回复不在/updates.json窗口内）时回退为全量遍历，
+ * 上次抓取不完整的新闻即使评论数未变化也不跳过
+ */
+@Service
+public class CommentService {
+    private static final Logger logger = LoggerFactory.getLogger(CommentService.class);
+
+    private final HackerNewsService hackerNewsService;
+    private final NewsItemRepository newsItemRepository;
+    private final CommentRepository commentRepository;
+    private final CommentCrawlStateRepository crawlStateRepository;
+    private final HackerNewsConfig hackerNewsConfig;
+
+    // 所有新闻共享的评论请求并发上限
+    private final AdaptiveConcurrencyLimiter globalLimiter;
+
+    private final AtomicBoolean refreshInProgress = new AtomicBoolean(false);
+
+    // 累计统计
+    private final AtomicLong storiesCrawled = new AtomicLong();
+    private final AtomicLong storiesSkipped = new AtomicLong();
+    private final AtomicLong storiesFullFallback = new AtomicLong();
+    private final AtomicLong commentsFetched = new AtomicLong();
+    private final AtomicLong commentsSaved = new AtomicLong();
+    private final AtomicLong commentsFailed = new AtomicLong();
+    private volatile Instant lastRefreshAt;
+    private volatile long lastRefreshMillis;
+
+    public CommentService(
+            HackerNewsService hackerNewsService,
+            NewsItemRepository newsItemRepository,
+            CommentRepository commentRepository,
+            CommentCrawlStateRepository crawlStateRepository,
+            HackerNewsConfig hackerNewsConfig) {
+        this.hackerNewsService = hackerNewsService;
+        this.newsItemRepository = newsItemRepository;
+        this.commentRepository = commentRepository;
+        this.crawlStateRepository = crawlStateRepository;
+        this.hackerNewsConfig = hackerNewsConfig;
+
+        // 最小和最大上限相同，即固定上限；HN请求本身的自适应限流由HackerNewsService负责
+        int globalConcurrency = Math.max(1, hackerNewsConfig.getCommentsGlobalConcurrency());
+        this.globalLimiter = new AdaptiveConcurrencyLimiter("hacker-news-comments",
+                globalConcurrency, globalConcurrency, globalConcurrency,
+                Duration.ofMillis(hackerNewsConfig.getLimiterLatencyThresholdMillis()),
+                hackerNewsConfig.getLimiterBackoffRatio(),
+                e -> false);
+    }
+
+    @Scheduled(initialDelayString = "${hacker-news.comments.refresh-interval:300000}",
+               fixedDelayString = "${hacker-news.comments.refresh-interval:300000}")
+    public void scheduledRefresh() {
+        if (hackerNewsConfig.isCommentsEnabled()) {
+            refresh();
+        }
+    }
+
+    /**
+     * 刷新排名靠前新闻的评论
+     *
+     * @return 如果已有刷新在运行则返回false
+     */
+    public boolean refresh() {
+        if (!refreshInProgress.compareAndSet(false, true)) {
+            logger.info("评论刷新已在运行中");
+            return false;
+        }
+
+        long startNanos = System.nanoTime();
+        int topStories = Math.max(1, hackerNewsConfig.getCommentsTopStories());
+        int storyParallelism = Math.max(1, hackerNewsConfig.getCommentsGlobalConcurrency()
+                / Math.max(1, hackerNewsConfig.getCommentsPerStoryConcurrency()));
+
+        Mono.fromCallable(() -> newsItemRepository.findByRankIsNotNullOrderByRankAsc(PageRequest.of(0, topStories)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .zipWith(loadChangedIds())
+                .flatMapMany(tuple -> {
+                    List<NewsItem> stories = tuple.getT1();
+                    Optional<Set<Long>> changedIds = tuple.getT2();
+                    logger.info("开始刷新 {} 条新闻的评论，{}", stories.size(),
+                        changedIds.isPresent() ? "按变更子树增量刷新" : "变更列表不可用，全量遍历");
+                    return Flux.fromIterable(stories)
+                        .flatMap(story -> crawlStory(story.getId(), changedIds), storyParallelism);
+                })
+                .then(Mono.fromRunnable(this::deleteOrphaned).subscribeOn(Schedulers.boundedElastic()))
+                .doFinally(signal -> {
+                    lastRefreshAt = Instant.now();
+                    lastRefreshMillis = (System.nanoTime() - startNanos) / 1_000_000;
+                    refreshInProgress.set(false);
+                    logger.info("评论刷新结束 ({}), 耗时 {}ms, 累计统计: {}", signal, lastRefreshMillis, getStatus());
+                })
+                .subscribe(
+                    null,
+                    error -> logger.error("评论刷新过程中出错: {}", error.getMessage(), error));
+        return true;
+    }
+
+    public boolean isRefreshInProgress() {
+        return refreshInProgress.get();
+    }
+
+    /**
+     * 按深度和ID顺序返回某条新闻的全部评论，可通过parentId还原树结构
+     */
+    public List<Comment> getComments(Long storyId) {
+        return commentRepository.findByStoryIdOrderByDepthAscIdAsc(storyId);
+    }
+
+    /**
+     * 抓取统计
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("refreshInProgress", refreshInProgress.get());
+        status.put("storiesCrawled", storiesCrawled.get());
+        status.put("storiesSkipped", storiesSkipped.get());
+        status.put("storiesFullFallback", storiesFullFallback.get());
+        status.put("commentsFetched", commentsFetched.get());
+        status.put("commentsSaved", commentsSaved.get());
+        status.put("commentsFailed", commentsFailed.get());
+        status.put("lastRefreshAt", lastRefreshAt != null ? lastRefreshAt.toString() : null);
+        status.put("lastRefreshMillis", lastRefreshMillis);
+        status.put("globalLimiter", globalLimiter.getStats());
+        return status;
+    }
+
+    /**
+     * 从/updates.json获取最近变更的条目ID，获取失败时返回空Optional
+     */
+    private Mono<Optional<Set<Long>>> loadChangedIds() {
+        return hackerNewsService.getUpdates()
+                .filter(updates -> updates.getItems() != null && !updates.getItems().isEmpty())
+                .map(updates -> Optional.<Set<Long>>of(new HashSet<>(updates.getItems())))
+                .defaultIfEmpty(Optional.empty());
+    }
+
+    private Mono<Void> crawlStory(Long storyId, Optional<Set<Long>> changedIds) {
+        return hackerNewsService.getItemById(storyId)
+                .filter(story -> story.getType() != null)
+                .publishOn(Schedulers.boundedElastic())
+                .flatMap(story -> {
+                    CommentCrawlState state = crawlStateRepository.findById(storyId).orElse(null);
+                    boolean incomplete = state != null && isIncomplete(state);
+                    if (state != null && !incomplete && Objects.equals(state.getDescendants(), story.getDescendants())) {
+                        logger.debug("新闻 {} 的评论数未变化，跳过", storyId);
+                        storiesSkipped.incrementAndGet();
+                        return Mono.empty();
+                    }
+
+                    StoryWalk walk = state == null || incomplete || changedIds.isEmpty() ?
+                        StoryWalk.full(storyId) :
+                        StoryWalk.incremental(storyId, new HashSet<>(commentRepository.findIdsByStoryId(storyId)), changedIds.get());
+
+                    List<PendingComment> seed = new ArrayList<>();
+                    walk.enqueueKids(story.getKids(), storyId, 1, seed);
+                    if (walk.incremental) {
+                        // 已保存且出现在变更列表中的评论（有新回复或被编辑），从它们开始向下刷新
+                        List<Long> changedStored = walk.storedIds.stream()
+                            .filter(walk.changedIds::contains)
+                            .collect(Collectors.toList());
+                        commentRepository.findAllById(changedStored).forEach(comment ->
+                            seed.add(new PendingComment(comment.getId(), comment.getParentId(), comment.getDepth())));
+                    }
+
+                    logger.info("开始抓取新闻 {} 的评论（{}，初始 {} 个节点，HN评论数 {}）", storyId,
+                        walk.incremental ? "增量" : "全量", seed.size(), story.getDescendants());
+                    return walkLevel(walk, seed)
+                        .then(Mono.defer(() -> walk.incremental ? fallBackIfIncomplete(walk, story) : Mono.just(walk)))
+                        .flatMap(finished -> Mono.fromRunnable(() -> saveState(finished, story)).subscribeOn(Schedulers.boundedElastic()));
+                })
+                .onErrorResume(e -> {
+                    logger.error("抓取新闻 {} 的评论时出错: {}", storyId, e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * 增量遍历只覆盖/updates.json窗口内的变更，窗口外新增的回复会漏掉；
+     * 本地评论数少于HN报告的descendants且未被预算截断时，重新做一次全量遍历
+     */
+    private Mono<StoryWalk> fallBackIfIncomplete(StoryWalk walk, HackerNewsItem story) {
+        return Mono.fromCallable(() -> commentRepository.countByStoryId(walk.storyId))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(stored -> {
+                    if (walk.truncated || story.getDescendants() == null || stored >= story.getDescendants()) {
+                        return Mono.just(walk);
+                    }
+                    logger.info("新闻 {} 增量抓取后本地评论 {} 条，少于HN评论数 {}，回退为全量抓取",
+                        walk.storyId, stored, story.getDescendants());
+                    storiesFullFallback.incrementAndGet();
+                    StoryWalk full = StoryWalk.full(walk.storyId);
+                    List<PendingComment> seed = new ArrayList<>();
+                    full.enqueueKids(story.getKids(), walk.storyId, 1, seed);
+                    return walkLevel(full, seed).thenReturn(full);
+                });
+    }
+
+    /**
+     * 上次抓取没有截断，但本地评论数少于当时的descendants（有评论获取失败或漏抓）
+     */
+    private static boolean isIncomplete(CommentCrawlState state) {
+        return !Boolean.TRUE.equals(state.getTruncated())
+            && state.getDescendants() != null
+            && state.getCommentsStored() != null
+            && state.getCommentsStored() < state.getDescendants();
+    }
+
+    /**
+     * 抓取一层评论：流式获取、分批写库，同时收集下一层的待抓取节点
+     * concatMap预取1批，保证内存中最多只有两批评论；
+     * 获取在flatMap内并发进行，转换和收集子节点放在flatMap之后，在合并后的串行流上执行
+     */
+    private Mono<Void> walkLevel(StoryWalk walk, List<PendingComment> level) {
+        if (level.isEmpty()) {
+            return Mono.empty();
+        }
+
+        int maxDepth = hackerNewsConfig.getCommentsMaxDepth();
+        int maxPerStory = hackerNewsConfig.getCommentsMaxPerStory();
+        List<PendingComment> nextLevel = new ArrayList<>();
+
+        return Flux.fromIterable(level)
+                .filter(pending -> walk.admit(pending, maxDepth, maxPerStory))
+                .flatMap(pending -> globalLimiter.run(() -> hackerNewsService.getItemById(pending.id))
+                        .map(item -> Tuples.of(pending, item)),
+                    Math.max(1, hackerNewsConfig.getCommentsPerStoryConcurrency()))
+                .map(fetched -> toComment(walk, fetched.getT1(), fetched.getT2(), nextLevel))
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .buffer(Math.max(1, hackerNewsConfig.getCommentsSaveBatchSize()))
+                .concatMap(batch -> Mono.fromRunnable(() -> {
+                        commentRepository.saveAll(batch);
+                        commentsSaved.addAndGet(batch.size());
+                    }).subscribeOn(Schedulers.boundedElastic()), 1)
+                .then(Mono.defer(() -> walkLevel(walk, nextLevel)));
+    }
+
+    /**
+     * 将HN条目转为评论实体，并把需要继续抓取的子评论加入下一层
+     * 获取失败（返回空条目）时计为失败，不写库
+     */
+    private Optional<Comment> toComment(StoryWalk walk, PendingComment pending, HackerNewsItem item, List<PendingComment> nextLevel) {
+        commentsFetched.incrementAndGet();
+        if (item.getType() == null) {
+            commentsFailed.incrementAndGet();
+            return Optional.empty();
+        }
+
+        Comment comment = new Comment();
+        comment.setId(pending.id);
+        comment.setStoryId(walk.storyId);
+        comment.setParentId(item.getParent() != null ? item.getParent() : pending.parentId);
+        comment.setDepth(pending.depth);
+        comment.setAuthor(item.getBy());
+        comment.setTextEn(item.getText());
+        comment.setKidIds(item.getKids() != null ?
+            item.getKids().stream().map(String::valueOf).collect(Collectors.joining(",")) : null);
+        comment.setTime(item.getTime());
+        comment.setDeleted(Boolean.TRUE.equals(item.getDeleted()));
+        comment.setDead(Boolean.TRUE.equals(item.getDead()));
+        comment.setLastUpdated(Instant.now());
+
+        // 在flatMap合并之后调用，同一时间只有一个线程执行，nextLevel和walk不需要额外同步
+        walk.enqueueKids(item.getKids(), pending.id, pending.depth + 1, nextLevel);
+        return Optional.of(comment);
+    }
+
+    private void saveState(StoryWalk walk, HackerNewsItem story) {
+        CommentCrawlState state = new CommentCrawlState();
+        state.setStoryId(walk.storyId);
+        state.setDescendants(story.getDescendants());
+        state.setCommentsStored(commentRepository.countByStoryId(walk.storyId));
+        state.setTruncated(walk.truncated);
+        state.setLastCrawledAt(Instant.now());
+        crawlStateRepository.save(state);
+        storiesCrawled.incrementAndGet();
+
+        logger.info("新闻 {} 的评论抓取完成：本次获取 {} 条，本地共 {} 条{}", walk.storyId, walk.admitted,
+            state.getCommentsStored(), walk.truncated ? "（已达到深度/数量预算）" : "");
+    }
+
+    /**
+     * 清理所属新闻已被删除的评论和抓取状态
+     */
+    private void deleteOrphaned() {
+        int comments = commentRepository.deleteOrphaned();
+        int states = crawlStateRepository.deleteOrphaned();
+        if (comments > 0 || states > 0) {
+            logger.info("清理 {} 条孤立评论和 {} 条抓取状态", comments, states);
+        }
+    }
+
+    /**
+     * 待抓取的评论节点
+     */
+    private static class PendingComment {
+        final Long id;
+        final Long parentId;
+        final int depth;
+
+        PendingComment(Long id, Long parentId, int depth) {
+            this.id = id;
+            this.parentId = parentId;
+            this.depth = depth;
+        }
+    }
+
+    /**
+     * 单条新闻一次遍历的状态：已访问节点、预算，以及增量模式下判断哪些子树需要刷新
+     */
+    private static class StoryWalk {
+        final Long storyId;
+        final boolean incremental;
+        final Set<Long> storedIds;
+        final Set<Long> changedIds;
+        final Set<Long> visited = new HashSet<>();
+        int admitted;
+        boolean truncated;
+
+        private StoryWalk(Long storyId, boolean incremental, Set<Long> storedIds, Set<Long> changedIds) {
+            this.storyId = storyId;
+            this.incremental = incremental;
+            this.storedIds = storedIds;
+            this.changedIds = changedIds;
+        }
+
+        static StoryWalk full(Long storyId) {
+            return new StoryWalk(storyId, false, Collections.emptySet(), Collections.emptySet());
+        }
+
+        static StoryWalk incremental(Long storyId, Set<Long> storedIds, Set<Long> changedIds) {
+            return new StoryWalk(storyId, true, storedIds, changedIds);
+        }
+
+        /**
+         * 全量模式下所有子评论都要抓取；增量模式下只抓取新评论和已变更的评论
+         */
+        void enqueueKids(List<Long> kids, Long parentId, int depth, List<PendingComment> target) {
+            if (kids == null) {
+                return;
+            }
+            for (Long kid : kids) {
+                if (!incremental || !storedIds.contains(kid) || changedIds.contains(kid)) {
+                    target.add(new PendingComment(kid, parentId, depth));
+                }
+            }
+        }
+
+        boolean admit(PendingComment pending, int maxDepth, int maxPerStory) {
+            if (!visited.add(pending.id)) {
+                return false;
+            }
+            if (pending.depth > maxDepth || admitted >= maxPerStory) {
+                truncated = true;
+                return false;
+            }
+            admitted++;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.hacker_cnews.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.example.hacker_cnews.util.TokenBucketRateLimiter;
+
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.util.retry.Retry;
+
+/**
+ * DeepL翻译提供方，负责请求速率限制和每月字符配额
+ */
+@Service
+public class DeepLTranslationProvider implements TranslationProvider {
+    private static final Logger logger = LoggerFactory.getLogger(DeepLTranslationProvider.class);
+
+    private final WebClient webClient;
+
+    @Value("${deepl.translate.key}")
+    private String deeplApiKey;
+
+    @Value("${deepl.translate.url}")
+    private String deeplApiUrl;
+
+    @Value("${deepl.cost-per-million-chars:25}")
+    private double costPerMillionChars;
+
+    // DeepL请求速率限制，令牌不足时批次排队等待而不是失败
+    private final TokenBucketRateLimiter deeplRateLimiter;
+
+    // DeepL每月字符配额：本地按成功翻译的字符数累计，并定期用/v2/usage的数据校正
+    @Value("${deepl.quota.monthly-chars:500000}")
+    private long quotaMonthlyChars;
+
+    // 剩余配额低于该比例时只翻译标题
+    @Value("${deepl.quota.titles-only-ratio:0.1}")
+    private double quotaTitlesOnlyRatio;
+
+    // 用量查询地址，为空时由翻译地址推出（/v2/translate -> /v2/usage）
+    @Value("${deepl.quota.usage-url:}")
+    private String quotaUsageUrl;
+
+    private final AtomicLong quotaUsedChars = new AtomicLong();
+    private volatile long quotaLimitFromApi = -1;
+    private volatile YearMonth quotaPeriod = YearMonth.now();
+    private volatile Instant quotaSyncedAt;
+    private final AtomicLong throttledRetries = new AtomicLong();
+
+    public DeepLTranslationProvider(
+            WebClient.Builder webClientBuilder,
+            @Qualifier("deeplHttpClient") HttpClient httpClient,
+            @Value("${deepl.rate.requests-per-second:5}") double requestsPerSecond,
+            @Value("${deepl.rate.burst:5}") int requestBurst) {
+        // 不设置baseUrl，让每个请求使用完整URL；使用独立的deepl连接池
+        this.webClient = webClientBuilder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+        this.deeplRateLimiter = new TokenBucketRateLimiter("deepl", requestsPerSecond, requestBurst);
+    }
+
+    @Override
+    public String getName() {
+        return "deepl";
+    }
+
+    /**
+     * 配置了API密钥且本期配额未用完
+     */
+    @Override
+    public boolean isAvailable() {
+        return deeplApiKey != null && !deeplApiKey.trim().isEmpty() && getRemainingQuota() > 0;
+    }
+
+    @Override
+    public double getCostPerMillionChars() {
+        return costPerMillionChars;
+    }
+
+    /**
+     * 一次请求翻译多段文本，结果与输入按顺序一一对应
+     */
+    @Override
+    public Mono<List<String>> translate(List<String> texts, LongConsumer upstreamLatency) {
+        logger.debug("DeepL批量翻译: {} 段文本", texts.size());
+        long chars = texts.stream().mapToLong(String::length).sum();
+        if (chars > getRemainingQuota()) {
+            return Mono.error(new DeepLQuotaExceededException(chars, getRemainingQuota()));
+        }
+
+        // 构建请求体
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("text", texts);
+        requestBody.put("source_lang", "EN");
+        requestBody.put("target_lang", "ZH");
+
+        // 先取得速率令牌再发送；被DeepL限流（429）时退避后重试，调用方继续等待
+        // 上报的延迟只计成功的那次HTTP请求，令牌等待和429退避是本地的限流，不代表DeepL变慢
+        return deeplRateLimiter.acquire()
+                .then(Mono.defer(() -> {
+                    long startNanos = System.nanoTime();
+                    return sendDeepLBatch(texts, requestBody)
+                            .doOnNext(results -> upstreamLatency.accept(System.nanoTime() - startNanos));
+                }))
+                .retryWhen(Retry.backoff(3, Duration.ofSeconds(1))
+                        .filter(DeepLTranslationProvider::isThrottled)
+                        .doBeforeRetry(signal -> throttledRetries.incrementAndGet())
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .doOnNext(results -> quotaUsedChars.addAndGet(chars))
+                .doOnError(error -> {
+                    if (isQuotaExhausted(error)) {
+                        // DeepL返回456表示本期配额已用完，本地立即按用完处理，等下一次用量同步再校正
+                        logger.error("DeepL字符配额已用完");
+                        quotaUsedChars.set(getQuotaLimit());
+                    }
+                });
+    }
+
+    private Mono<List<String>> sendDeepLBatch(List<String> texts, Map<String, Object> requestBody) {
+        // 发送POST请求到DeepL API
+        return webClient.post()
+                .uri(deeplApiUrl)
+                .header(HttpHeaders.AUTHORIZATION, "DeepL-Auth-Key " + deeplApiKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(requestBody))
+                .retrieve()
+                .bodyToMono(Map.class)
+                .doOnNext(response -> logger.debug("DeepL API响应: {}", response))
+                .map(response -> {
+                    // 解析翻译结果
+                    List<String> results = new ArrayList<>();
+                    Object translations = response.get("translations");
+                    if (translations instanceof List) {
+                        for (Object translation : (List<?>) translations) {
+                            results.add(translation instanceof Map ? (String) ((Map<?, ?>) translation).get("text") : null);
+                        }
+                    }
+                    if (results.size() != texts.size()) {
+                        logger.warn("DeepL翻译响应中的结果数量不符: 请求 {} 段, 返回 {} 段", texts.size(), results.size());
+                    }
+                    return results;
+                });
+    }
+
+    private static boolean isThrottled(Throwable error) {
+        return error instanceof WebClientResponseException &&
+                ((WebClientResponseException) error).getStatusCode().value() == 429;
+    }
+
+    private static boolean isQuotaExhausted(Throwable error) {
+        return error instanceof WebClientResponseException &&
+                ((WebClientResponseException) error).getStatusCode().value() == 456;
+    }
+
+    /**
+     * 定期从DeepL查询本期已用字符数和配额上限，校正本地累计值
+     */
+    @Scheduled(initialDelay = 5000, fixedDelayString = "${deepl.quota.sync-interval-ms:600000}")
+    public void syncQuotaUsage() {
+        String usageUrl = quotaUsageUrl != null && !quotaUsageUrl.isEmpty() ?
+                quotaUsageUrl : deeplApiUrl.replaceFirst("/translate$", "/usage");
+        webClient.get()
+                .uri(usageUrl)
+                .header(HttpHeaders.AUTHORIZATION, "DeepL-Auth-Key " + deeplApiKey)
+                .retrieve()
+                .bodyToMono(Map.class)
+                .subscribe(
+                    usage -> {
+                        Object count = usage.get("character_count");
+                        Object limit = usage.get("character_limit");
+                        if (count instanceof Number) {
+                            quotaUsedChars.set(((Number) count).longValue());
+                        }
+                        if (limit instanceof Number) {
+                            quotaLimitFromApi = ((Number) limit).longValue();
+                        }
+                        quotaPeriod = YearMonth.now();
+                        quotaSyncedAt = Instant.now();
+                        logger.info("DeepL用量: 已用 {} / {} 字符", quotaUsedChars.get(), getQuotaLimit());
+                    },
+                    error -> logger.warn("查询DeepL用量失败，继续使用本地累计值: {}", error.getMessage()));
+    }
+
+    public long getQuotaLimit() {
+        return quotaLimitFromApi > 0 ? quotaLimitFromApi : quotaMonthlyChars;
+    }
+
+    /**
+     * 本期剩余字符数；跨月后在下一次同步前按新周期从零开始估算
+     */
+    public long getRemainingQuota() {
+        YearMonth now = YearMonth.now();
+        if (!now.equals(quotaPeriod)) {
+            quotaPeriod = now;
+            quotaUsedChars.set(0);
+        }
+        return Math.max(0, getQuotaLimit() - quotaUsedChars.get());
+    }
+
+    public double getTitlesOnlyRatio() {
+        return quotaTitlesOnlyRatio;
+    }
+
+    /**
+     * 剩余配额低于阈值时只翻译标题
+     */
+    public boolean isTitlesOnlyMode() {
+        return getRemainingQuota() < getQuotaLimit() * quotaTitlesOnlyRatio;
+    }
+
+    /**
+     * DeepL配额和速率限制的状态，remainingChars为剩余字符配额
+     */
+    public Map<String, Object> getQuotaStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long limit = getQuotaLimit();
+        long remaining = getRemainingQuota();
+        stats.put("limitChars", limit);
+        stats.put("usedChars", quotaUsedChars.get());
+        stats.put("remainingChars", remaining);
+        stats.put("remainingRatio", limit > 0 ? Math.round(remaining * 10000.0 / limit) / 10000.0 : 0);
+        stats.put("titlesOnly", isTitlesOnlyMode());
+        stats.put("limitSource", quotaLimitFromApi > 0 ? "api" : "config");
+        stats.put("syncedAt", quotaSyncedAt != null ? quotaSyncedAt.toString() : null);
+        stats.put("throttledRetries", throttledRetries.get());
+        stats.put("rateLimiter", deeplRateLimiter.getStats());
+        return stats;
+    }
+
+    /**
+     * 本期剩余字符配额不足以发送这批文本
+     */
+    public static class DeepLQuotaExceededException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public DeepLQuotaExceededException(long requested, long remaining) {
+            super("DeepL字符配额不足: 需要 " + requested + " 字符, 剩余 " + remaining + " 字符");
+        }
+    }
+}
@@ -1,26 +1,42 @@
 package com.example.hacker_cnews.service;
 
+import java.io.UncheckedIOException;
 import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 
+import com.example.hacker_cnews.config.HackerNewsConfig;
+import com.example.hacker_cnews.util.AdaptiveConcurrencyLimiter;
+import com.example.hacker_cnews.util.CircuitBreaker;
+import com.example.hacker_cnews.util.CircuitBreaker.CircuitBreakerOpenException;
+import com.example.hacker_cnews.util.RequestHedger;
+import com.example.hacker_cnews.util.SingleFlight;
+import com.example.hacker_cnews.util.StreamingJsonDecoder;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
-import io.netty.channel.ChannelOption;
-import io.netty.handler.timeout.ReadTimeoutHandler;
-import io.netty.handler.timeout.WriteTimeoutHandler;
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.handler.timeout.ReadTimeoutException;
 import reactor.core.publisher.Mono;
 import reactor.netty.http.client.HttpClient;
 import reactor.util.retry.Retry;
@@ -30,21 +46,33 @@ public class HackerNewsService {
     private static final Logger logger = LoggerFactory.getLogger(HackerNewsService.class);
     private final WebClient webClient;
     private final ObjectMapper objectMapper;
-    private static final String HN_API_BASE_URL = "https://hacker-news.firebaseio.com/v0";
     
-    public HackerNewsService(WebClient.Builder webClientBuilder, ObjectMapper objectMapper) {
+    // 合并对同一条目的并发请求，空结果（获取失败）不复用
+    private final SingleFlight<Long, HackerNewsItem> itemRequests;
+    
+    // 条目详情的流式JSON解码器
+    private final StreamingJsonDecoder itemDecoder;
+    
+    // 条目请求的自适应并发限制，更新周期和重试路径共享
+    private final AdaptiveConcurrencyLimiter fetchLimiter;
+    
+    // 条目请求的对冲和熔断，为null表示未启用
+    private final RequestHedger fetchHedger;
+    private final CircuitBreaker circuitBreaker;
+    
+    private static final Duration ITEM_TIMEOUT = Duration.ofSeconds(120);
+    
+    public HackerNewsService(
+            WebClient.Builder webClientBuilder,
+            ObjectMapper objectMapper,
+            HackerNewsConfig hackerNewsConfig,
+            @Qualifier("hackerNewsHttpClient") HttpClient httpClient) {
         // 配置ObjectMapper以处理未知属性和空值
         this.objectMapper = objectMapper;
         this.objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
         this.objectMapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
         
-        // 配置HttpClient用于优化连接设置 - 增加超时时间
-        HttpClient httpClient = HttpClient.create()
-            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 60000) // 60秒连接超时
-            .responseTimeout(Duration.ofSeconds(120)) // 120秒响应超时
-            .doOnConnected(conn -> conn
-                .addHandlerLast(new ReadTimeoutHandler(120, TimeUnit.SECONDS)) // 120秒读取超时
-                .addHandlerLast(new WriteTimeoutHandler(120, TimeUnit.SECONDS))); // 120秒写入超时
+        // HttpClient使用独立的hacker-news连接池，超时和连接池参数见HttpClientConfig
         
         // 创建请求记录器
         ExchangeFilterFunction logRequest = ExchangeFilterFunction.ofRequestProcessor(clientRequest -> {
@@ -59,13 +87,40 @@ public class HackerNewsService {
         });
         
         this.webClient = webClientBuilder
-                .baseUrl(HN_API_BASE_URL)
+                .baseUrl(hackerNewsConfig.getApiBaseUrl())
                 .clientConnector(new ReactorClientHttpConnector(httpClient))
                 .filter(logRequest)
                 .filter(logResponse)
                 .build();
         
-        logger.info("HackerNewsService 初始化完成，使用基本URL: {}", HN_API_BASE_URL);
+        this.itemDecoder = new StreamingJsonDecoder(objectMapper);
+        this.fetchLimiter = new AdaptiveConcurrencyLimiter("hacker-news-item",
+                hackerNewsConfig.getLimiterInitialLimit(),
+                hackerNewsConfig.getLimiterMinLimit(),
+                hackerNewsConfig.getLimiterMaxLimit(),
+                Duration.ofMillis(hackerNewsConfig.getLimiterLatencyThresholdMillis()),
+                hackerNewsConfig.getLimiterBackoffRatio(),
+                HackerNewsService::isOverloadError);
+        this.fetchHedger = hackerNewsConfig.isHedgeEnabled() ?
+                new RequestHedger("hacker-news-item",
+                    hackerNewsConfig.getHedgePercentile(),
+                    Duration.ofMillis(hackerNewsConfig.getHedgeMinDelayMillis()),
+                    Duration.ofMillis(hackerNewsConfig.getHedgeMaxDelayMillis()),
+                    hackerNewsConfig.getHedgeMaxRatio(),
+                    1000) : null;
+        this.circuitBreaker = hackerNewsConfig.isCircuitBreakerEnabled() ?
+                new CircuitBreaker("hacker-news-item",
+                    hackerNewsConfig.getCircuitBreakerFailureRateThreshold(),
+                    hackerNewsConfig.getCircuitBreakerWindowSize(),
+                    hackerNewsConfig.getCircuitBreakerMinimumCalls(),
+                    Duration.ofMillis(hackerNewsConfig.getCircuitBreakerOpenDurationMillis()),
+                    hackerNewsConfig.getCircuitBreakerHalfOpenCalls(),
+                    HackerNewsService::isUpstreamFailure) : null;
+        this.itemRequests = new SingleFlight<>(
+                Duration.ofMillis(hackerNewsConfig.getItemDedupTtlMillis()),
+                item -> item.getType() != null);
+        
+        logger.info("HackerNewsService 初始化完成，使用基本URL: {}", hackerNewsConfig.getApiBaseUrl());
     }
     
     public Mono<List<Long>> getTopStories(int limit) {
@@ -91,62 +146,136 @@ public class HackerNewsService {
                 .onErrorReturn(Collections.emptyList());
     }
     
+    /**
+     * 获取当前最大的条目ID（/maxitem.json）
+     */
+    public Mono<Long> getMaxItem() {
+        logger.info("获取当前最大条目ID");
+        return webClient.get()
+                .uri("/maxitem.json")
+                .retrieve()
+                .bodyToMono(Long.class)
+                .doOnNext(maxId -> logger.info("当前最大条目ID: {}", maxId))
+                .timeout(Duration.ofSeconds(120))
+                .retryWhen(Retry.backoff(3, Duration.ofSeconds(2))
+                        .maxBackoff(Duration.ofSeconds(20))
+                        .doBeforeRetry(retrySignal -> 
+                            logger.info("重试获取最大条目ID (第{}次)", retrySignal.totalRetries() + 1)))
+                .doOnError(e -> logger.error("获取最大条目ID失败: {} - {}", e.getClass().getName(), e.getMessage()));
+    }
+    
+    /**
+     * 获取最近变更的条目和用户列表（/updates.json）
+     * 获取失败时返回空Mono，由调用方决定是否退回全量同步
+     */
+    public Mono<HackerNewsUpdates> getUpdates() {
+        logger.info("获取最近变更列表");
+        return webClient.get()
+                .uri("/updates.json")
+                .retrieve()
+                .bodyToMono(HackerNewsUpdates.class)
+                .doOnNext(updates -> logger.info("获取到 {} 个变更条目, {} 个变更用户",
+                        updates.getItems() != null ? updates.getItems().size() : 0,
+                        updates.getProfiles() != null ? updates.getProfiles().size() : 0))
+                .timeout(Duration.ofSeconds(120))
+                .retryWhen(Retry.backoff(3, Duration.ofSeconds(2))
+                        .maxBackoff(Duration.ofSeconds(20))
+                        .doBeforeRetry(retrySignal -> 
+                            logger.info("重试获取变更列表 (第{}次)", retrySignal.totalRetries() + 1)))
+                .doOnError(e -> logger.error("获取变更列表失败: {} - {}", e.getClass().getName(), e.getMessage()))
+                .onErrorResume(e -> Mono.empty());
+    }
+    
+    /**
+     * 获取条目详情
+     * 同一ID的并发请求（更新周期、重试、修复、测试端点）共享一次上游调用，结果短时间内复用
+     */
     public Mono<HackerNewsItem> getItemById(Long id) {
+        return itemRequests.execute(id, () -> fetchItemById(id));
+    }
+    
+    /**
+     * 条目请求合并的统计信息
+     */
+    public Map<String, Object> getItemFetchStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("requests", itemRequests.getRequests());
+        stats.put("upstreamCalls", itemRequests.getUpstreamCalls());
+        stats.put("coalesced", itemRequests.getCoalesced());
+        stats.put("inFlight", itemRequests.getInFlightSize());
+        return stats;
+    }
+    
+    /**
+     * 条目请求并发限制器的当前状态（包括当前并发上限）
+     */
+    public Map<String, Object> getFetchLimiterStats() {
+        return fetchLimiter.getStats();
+    }
+    
+    /**
+     * 条目请求的对冲和熔断统计（对冲次数、对冲胜出次数、短路次数等）
+     */
+    public Map<String, Object> getResilienceStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("hedge", fetchHedger != null ? fetchHedger.getStats() : "disabled");
+        stats.put("circuitBreaker", circuitBreaker != null ? circuitBreaker.getStats() : "disabled");
+        return stats;
+    }
+    
+    /**
+     * 条目请求并发限制器当前的并发上限（随上游健康状况变化）
+     */
+    public int getCurrentFetchLimit() {
+        return fetchLimiter.getLimit();
+    }
+    
+    /**
+     * 条目请求允许的最大并发数，调用方据此设置自身的并发度，实际并发由限制器控制
+     */
+    public int getMaxFetchConcurrency() {
+        return fetchLimiter.getMaxLimit();
+    }
+    
+    private Mono<HackerNewsItem> fetchItemById(Long id) {
         logger.info("获取新闻项详情，ID: {}", id);
         
-        // 首先尝试获取原始JSON数据
-        return webClient.get()
-                .uri("/item/{id}.json", id)
-                .retrieve()
-                .bodyToMono(String.class)  // 获取原始JSON
-                .doOnNext(rawJson -> {
-                    logger.debug("获取到原始JSON: {}", rawJson);
-                })
-                .flatMap(rawJson -> {
-                    if (rawJson == null || rawJson.equals("null") || rawJson.trim().isEmpty()) {
-                        logger.error("API返回了null或空JSON，ID: {}", id);
-                        HackerNewsItem emptyItem = new HackerNewsItem();
-                        emptyItem.setId(id);
-                        return Mono.just(emptyItem);
+        return attemptItemFetch(id)
+                .map(item -> {
+                    // 验证解析后的每个重要字段
+                    logger.info("解析后对象: id={}, by={}, title={}, url={}, type={}, time={}",
+                        item.getId(), item.getBy(), item.getTitle(), item.getUrl(), 
+                        item.getType(), item.getTime());
+                    
+                    if (item.getId() == null) {
+                        logger.error("解析的对象没有ID，设置为请求ID: {}", id);
+                        item.setId(id);
                     }
                     
-                    try {
-                        // 手动解析JSON，并打印详细信息用于调试
-                        logger.info("准备解析JSON，原始内容: {}", rawJson);
-                        HackerNewsItem item = objectMapper.readValue(rawJson, HackerNewsItem.class);
-                        
-                        // 验证解析后的每个重要字段
-                        logger.info("解析后对象: id={}, by={}, title={}, url={}, type={}, time={}",
-                            item.getId(), item.getBy(), item.getTitle(), item.getUrl(), 
-                            item.getType(), item.getTime());
-                        
-                        if (item == null) {
-                            logger.error("JSON解析为null对象，ID: {}", id);
-                        } else if (item.getId() == null) {
-                            logger.error("解析的对象没有ID，设置为请求ID: {}", id);
-                            item.setId(id);
-                        }
-                        
-                        if (item != null && item.getTitle() != null) {
-                            logger.info("成功解析新闻项 ID:{}, 标题: {}", id, item.getTitle());
-                        } else if (item != null) {
-                            logger.warn("解析新闻项成功 ID:{}, 但标题为null", id);
-                        }
-                        
-                        return Mono.just(item);
-                    } catch (Exception e) {
-                        logger.error("解析JSON时出错，ID: {}, 错误: {} - {}", id, e.getClass().getName(), e.getMessage());
-                        logger.error("原始JSON: {}", rawJson);
-                        
-                        // 创建空对象作为备用
-                        HackerNewsItem emptyItem = new HackerNewsItem();
-                        emptyItem.setId(id);
-                        return Mono.just(emptyItem);
+                    if (item.getTitle() != null) {
+                        logger.info("成功解析新闻项 ID:{}, 标题: {}", id, item.getTitle());
+                    } else {
+                        logger.warn("解析新闻项成功 ID:{}, 但标题为null", id);
                     }
+                    return item;
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    logger.error("API返回了null或空JSON，ID: {}", id);
+                    HackerNewsItem emptyItem = new HackerNewsItem();
+                    emptyItem.setId(id);
+                    return emptyItem;
+                }))
+                .onErrorResume(HackerNewsService::isParseError, e -> {
+                    // 解析错误重试无意义，直接创建空对象作为备用
+                    logger.error("解析JSON时出错，ID: {}, 错误: {} - {}", id, e.getClass().getName(), e.getMessage());
+                    HackerNewsItem emptyItem = new HackerNewsItem();
+                    emptyItem.setId(id);
+                    return Mono.just(emptyItem);
                 })
-                .timeout(Duration.ofSeconds(120))  // 增加超时时间到120秒
                 .retryWhen(Retry.backoff(3, Duration.ofSeconds(2))  // 减少重试次数但增加间隔
                         .maxBackoff(Duration.ofSeconds(20))
+                        // 熔断打开时快速失败，不再重试
+                        .filter(e -> !(e instanceof CircuitBreakerOpenException))
                         .doBeforeRetry(retrySignal -> 
                             logger.info("重试获取新闻项 ID:{} (第{}次)", id, retrySignal.totalRetries() + 1)))
                 .doOnError(e -> logger.error("获取新闻项 ID:{} 失败: {} - {}", id, e.getClass().getName(), e.getMessage()))
@@ -154,10 +283,58 @@ public class HackerNewsService {
                     logger.error("创建空新闻项代替 ID:{}, 错误: {}", id, e.getMessage());
                     HackerNewsItem emptyItem = new HackerNewsItem();
                     emptyItem.setId(id);  // 确保ID被设置
+                    // 与条目不存在（API返回null）区分开，调用方可以稍后重试
+                    emptyItem.setFetchFailed(true);
                     return Mono.just(emptyItem);
                 });
     }
     
+    /**
+     * 单次获取尝试：熔断 -> 对冲 -> 并发限制 -> HTTP请求
+     * 直接从DataBuffer流式解析，不生成中间的JSON字符串；每个请求（包括对冲和重试）都需要获得并发许可
+     */
+    private Mono<HackerNewsItem> attemptItemFetch(Long id) {
+        Supplier<Mono<HackerNewsItem>> request = () -> fetchLimiter.run(() -> webClient.get()
+                .uri("/item/{id}.json", id)
+                .retrieve()
+                .bodyToFlux(DataBuffer.class)
+                .as(body -> itemDecoder.decode(body, HackerNewsItem.class))
+                .timeout(ITEM_TIMEOUT));
+        Supplier<Mono<HackerNewsItem>> hedged = fetchHedger != null ? () -> fetchHedger.run(request) : request;
+        return circuitBreaker != null ? circuitBreaker.run(hedged) : Mono.defer(hedged);
+    }
+    
+    /**
+     * 熔断器计为失败的错误：过载信号、5xx响应和连接错误（解析错误、404等不计入）
+     */
+    private static boolean isUpstreamFailure(Throwable e) {
+        if (isOverloadError(e) || e instanceof WebClientRequestException) {
+            return true;
+        }
+        return e instanceof WebClientResponseException responseException && 
+               responseException.getStatusCode().is5xxServerError();
+    }
+    
+    /**
+     * 超时、限流(429)和服务不可用(503)视为上游过载信号
+     */
+    private static boolean isOverloadError(Throwable e) {
+        if (e instanceof TimeoutException || e instanceof ReadTimeoutException) {
+            return true;
+        }
+        if (e instanceof WebClientResponseException responseException) {
+            int status = responseException.getStatusCode().value();
+            return status == 429 || status == 503;
+        }
+        return e instanceof WebClientRequestException && 
+               (e.getCause() instanceof ReadTimeoutException || e.getCause() instanceof ConnectTimeoutException);
+    }
+    
+    private static boolean isParseError(Throwable e) {
+        return e instanceof JsonProcessingException || 
+               (e instanceof UncheckedIOException && e.getCause() instanceof JsonProcessingException);
+    }
+    
     // 内部类表示HN API返回的数据结构
     // 添加JsonIgnoreProperties注解，允许未知属性
     @JsonIgnoreProperties(ignoreUnknown = true)
@@ -174,6 +351,12 @@ public class HackerNewsService {
         // 添加API中的其他字段
         private Integer score;
         private Integer descendants; // 评论数量
+        private Long parent;         // 评论的父条目ID
+        private Boolean deleted;
+        private Boolean dead;
+        // 网络错误、超时或熔断导致获取失败（重试后仍失败），不是API返回的字段
+        @JsonIgnore
+        private boolean fetchFailed;
         
         // Getters and Setters
         public Long getId() {
@@ -255,5 +438,61 @@ public class HackerNewsService {
         public void setDescendants(Integer descendants) {
             this.descendants = descendants;
         }
+        
+        public Long getParent() {
+            return parent;
+        }
+        
+        public void setParent(Long parent) {
+            this.parent = parent;
+        }
+        
+        public Boolean getDeleted() {
+            return deleted;
+        }
+        
+        public void setDeleted(Boolean deleted) {
+            this.deleted = deleted;
+        }
+        
+        public Boolean getDead() {
+            return dead;
+        }
+        
+        public void setDead(Boolean dead) {
+            this.dead = dead;
+        }
+        
+        @JsonIgnore
+        public boolean isFetchFailed() {
+            return fetchFailed;
+        }
+        
+        public void setFetchFailed(boolean fetchFailed) {
+            this.fetchFailed = fetchFailed;
+        }
+    }
+    
+    // 表示/updates.json返回的数据结构
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class HackerNewsUpdates {
+        private List<Long> items;      // 最近变更的条目ID
+        private List<String> profiles; // 最近变更的用户名
+        
+        public List<Long> getItems() {
+            return items;
+        }
+        
+        public void setItems(List<Long> items) {
+            this.items = items;
+        }
+        
+        public List<String> getProfiles() {
+            return profiles;
+        }
+        
+        public void setProfiles(List<String> profiles) {
+            this.profiles = profiles;
+        }
     }
 } 
\ No newline at end of file
@@ -0,0 +1,292 @@
+package com.example.hacker_cnews.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.example.hacker_cnews.config.HackerNewsConfig;
+import com.example.hacker_cnews.entity.ItemRefreshState;
+import com.example.hacker_cnews.repository.ItemRefreshStateRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * 按速度调度每条新闻的刷新时间
+ * 每次获取到新闻后根据分数和排名的变化速度计算下次刷新时间：
+ * 间隔 = 最大间隔 / (1 + 分数速度/分数参考速度 + 排名速度/排名参考速度)，并限制在[最小间隔, 最大间隔]内
+ *
+ * 每个周期的请求数受全局预算（次/分钟）约束，新条目优先占用预算，剩余预算按逾期程度分配给到期的条目
+ * 调度状态保存在内存中，每个周期结束时批量写回数据库，重启后从数据库恢复
+ */
+@Service
+public class ItemRefreshScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(ItemRefreshScheduler.class);
+
+    // 速度的指数平滑系数
+    private static final double SMOOTHING = 0.5;
+    // 两次观测间隔太短时速度不可靠，不更新速度
+    private static final double MIN_OBSERVATION_MINUTES = 0.25;
+
+    private final ItemRefreshStateRepository repository;
+    private final HackerNewsConfig hackerNewsConfig;
+
+    private final Map<Long, ItemRefreshState> states = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    // 请求预算（令牌桶），最多积累一分钟的预算
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    private final AtomicLong selected = new AtomicLong();
+    private final AtomicLong deferred = new AtomicLong();
+
+    public ItemRefreshScheduler(ItemRefreshStateRepository repository, HackerNewsConfig hackerNewsConfig) {
+        this.repository = repository;
+        this.hackerNewsConfig = hackerNewsConfig;
+        this.tokens = hackerNewsConfig.getRefreshBudgetPerMinute();
+    }
+
+    @PostConstruct
+    public void loadState() {
+        try {
+            repository.findAll().forEach(state -> states.put(state.getItemId(), state));
+            logger.info("已恢复 {} 条新闻的刷新调度状态", states.size());
+        } catch (Exception e) {
+            logger.error("恢复刷新调度状态时出错: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 从已存储的新闻中选出本周期需要刷新的ID
+     *
+     * @param candidateIds 已存储、本周期没有其他原因必须获取的ID
+     * @param changedIds 变更列表中出现的ID，视为立即到期
+     * @param mustFetchCount 本周期必须获取的ID数量（新条目等），先从预算中扣除
+     */
+    public synchronized List<Long> selectDue(Collection<Long> candidateIds, Set<Long> changedIds, int mustFetchCount) {
+        refill();
+        // 必须获取的条目不受预算限制，但欠款最多一分钟的预算，避免冷启动或大量新条目后长时间停止刷新
+        double budget = hackerNewsConfig.getRefreshBudgetPerMinute();
+        tokens = Math.max(-budget, tokens - mustFetchCount);
+
+        Instant now = Instant.now();
+        List<Long> due = new ArrayList<>();
+        Map<Long, Double> urgency = new HashMap<>();
+        for (Long id : candidateIds) {
+            ItemRefreshState state = states.get(id);
+            if (state == null || state.getNextRefreshAt() == null) {
+                // 还没有调度记录（例如旧数据），尽快刷新一次以建立基线
+                due.add(id);
+                urgency.put(id, Double.MAX_VALUE / 2);
+            } else if (changedIds.contains(id)) {
+                due.add(id);
+                urgency.put(id, Double.MAX_VALUE);
+            } else if (!state.getNextRefreshAt().isAfter(now)) {
+                // 逾期时长相对于刷新间隔越大越紧急
+                double interval = Math.max(1, Duration.between(state.getLastObservedAt(), state.getNextRefreshAt()).toMillis());
+                urgency.put(id, Duration.between(state.getNextRefreshAt(), now).toMillis() / interval);
+                due.add(id);
+            }
+        }
+
+        due.sort(Comparator.comparing(urgency::get).reversed());
+        int allowed = (int) Math.max(0, Math.min(due.size(), Math.floor(tokens)));
+        tokens -= allowed;
+
+        selected.addAndGet(allowed);
+        deferred.addAndGet(due.size() - allowed);
+        if (allowed < due.size()) {
+            logger.info("刷新预算不足: 到期 {} 条，本周期刷新 {} 条，其余顺延", due.size(), allowed);
+        }
+        return new ArrayList<>(due.subList(0, allowed));
+    }
+
+    /**
+     * 记录一次成功获取的结果，更新速度并计算下次刷新时间
+     */
+    public void recordRefresh(Long id, Integer score, Integer rank) {
+        Instant now = Instant.now();
+        ItemRefreshState state = states.computeIfAbsent(id, key -> {
+            ItemRefreshState created = new ItemRefreshState();
+            created.setItemId(key);
+            created.setScoreVelocity(0.0);
+            created.setRankVelocity(0.0);
+            created.setRefreshCount(0L);
+            return created;
+        });
+
+        synchronized (state) {
+            Instant last = state.getLastObservedAt();
+            double minutes = last != null ? Duration.between(last, now).toMillis() / 60_000.0 : 0;
+            if (last != null && minutes >= MIN_OBSERVATION_MINUTES) {
+                if (score != null && state.getLastScore() != null) {
+                    double instant = (score - state.getLastScore()) / minutes;
+                    state.setScoreVelocity(smooth(state.getScoreVelocity(), Math.max(0, instant)));
+                }
+                if (rank != null && state.getLastRank() != null) {
+                    double instant = Math.abs(rank - state.getLastRank()) / minutes;
+                    state.setRankVelocity(smooth(state.getRankVelocity(), instant));
+                }
+            }
+            if (last == null || minutes >= MIN_OBSERVATION_MINUTES) {
+                state.setLastScore(score);
+                state.setLastRank(rank);
+                state.setLastObservedAt(now);
+            }
+            state.setRefreshCount(state.getRefreshCount() + 1);
+            // 第一次观测时速度未知，按最小间隔尽快再看一次
+            Duration interval = last == null ? minInterval() : intervalFor(state);
+            state.setNextRefreshAt(now.plus(interval));
+        }
+        dirty.add(id);
+    }
+
+    /**
+     * 只观测到排名变化（未获取条目）时更新排名速度，速度变快时提前下次刷新
+     */
+    public void observeRank(Long id, Integer rank) {
+        ItemRefreshState state = states.get(id);
+        if (state == null || rank == null) {
+            return;
+        }
+        synchronized (state) {
+            if (state.getLastRank() == null || state.getLastObservedAt() == null || state.getLastRank().equals(rank)) {
+                return;
+            }
+            double minutes = Math.max(MIN_OBSERVATION_MINUTES,
+                Duration.between(state.getLastObservedAt(), Instant.now()).toMillis() / 60_000.0);
+            state.setRankVelocity(smooth(state.getRankVelocity(), Math.abs(rank - state.getLastRank()) / minutes));
+            Instant earlier = state.getLastObservedAt().plus(intervalFor(state));
+            if (state.getNextRefreshAt() == null || earlier.isBefore(state.getNextRefreshAt())) {
+                state.setNextRefreshAt(earlier);
+            }
+        }
+        dirty.add(id);
+    }
+
+    /**
+     * 将变化过的调度状态写回数据库
+     */
+    public void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<ItemRefreshState> toSave = new ArrayList<>();
+        for (Long id : new ArrayList<>(dirty)) {
+            dirty.remove(id);
+            ItemRefreshState state = states.get(id);
+            if (state != null) {
+                toSave.add(state);
+            }
+        }
+        try {
+            repository.saveAll(toSave);
+            logger.debug("已保存 {} 条刷新调度状态", toSave.size());
+        } catch (Exception e) {
+            logger.error("保存刷新调度状态时出错: {}", e.getMessage());
+            toSave.forEach(state -> dirty.add(state.getItemId()));
+        }
+    }
+
+    /**
+     * 删除已清理新闻的调度状态
+     */
+    public void forget(Collection<Long> ids) {
+        ids.forEach(id -> {
+            states.remove(id);
+            dirty.remove(id);
+        });
+        try {
+            repository.deleteAllById(ids);
+        } catch (Exception e) {
+            logger.error("删除刷新调度状态时出错: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 清空全部调度状态（内存和数据库），用于重置新闻数据后重新开始
+     */
+    public void reset() {
+        states.clear();
+        dirty.clear();
+        try {
+            repository.deleteAllInBatch();
+            logger.info("已清空刷新调度状态");
+        } catch (Exception e) {
+            logger.error("清空刷新调度状态时出错: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        Instant now = Instant.now();
+        long dueNow = states.values().stream()
+            .filter(state -> state.getNextRefreshAt() != null && !state.getNextRefreshAt().isAfter(now))
+            .count();
+        stats.put("tracked", states.size());
+        stats.put("dueNow", dueNow);
+        stats.put("selected", selected.get());
+        stats.put("deferred", deferred.get());
+        stats.put("budgetPerMinute", hackerNewsConfig.getRefreshBudgetPerMinute());
+        synchronized (this) {
+            stats.put("tokens", Math.round(tokens * 100) / 100.0);
+        }
+
+        // 刷新最频繁的几条新闻
+        List<Map<String, Object>> hottest = new ArrayList<>();
+        states.values().stream()
+            .sorted(Comparator.comparing((ItemRefreshState state) -> intervalFor(state)))
+            .limit(10)
+            .forEach(state -> {
+                Map<String, Object> entry = new HashMap<>();
+                entry.put("id", state.getItemId());
+                entry.put("scoreVelocity", Math.round(state.getScoreVelocity() * 100) / 100.0);
+                entry.put("rankVelocity", Math.round(state.getRankVelocity() * 100) / 100.0);
+                entry.put("intervalSeconds", intervalFor(state).getSeconds());
+                entry.put("nextRefreshAt", state.getNextRefreshAt() != null ? state.getNextRefreshAt().toString() : null);
+                hottest.add(entry);
+            });
+        stats.put("hottest", hottest);
+        return stats;
+    }
+
+    private Duration intervalFor(ItemRefreshState state) {
+        double heat = 1
+            + nonNull(state.getScoreVelocity()) / hackerNewsConfig.getRefreshScoreVelocityRef()
+            + nonNull(state.getRankVelocity()) / hackerNewsConfig.getRefreshRankVelocityRef();
+        long millis = (long) (hackerNewsConfig.getRefreshMaxIntervalMillis() / heat);
+        return Duration.ofMillis(Math.max(hackerNewsConfig.getRefreshMinIntervalMillis(),
+            Math.min(hackerNewsConfig.getRefreshMaxIntervalMillis(), millis)));
+    }
+
+    private Duration minInterval() {
+        return Duration.ofMillis(hackerNewsConfig.getRefreshMinIntervalMillis());
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        double budget = hackerNewsConfig.getRefreshBudgetPerMinute();
+        tokens = Math.min(budget, tokens + (now - lastRefillNanos) / 60_000_000_000.0 * budget);
+        lastRefillNanos = now;
+    }
+
+    private static double smooth(Double previous, double sample) {
+        return previous == null ? sample : SMOOTHING * sample + (1 - SMOOTHING) * previous;
+    }
+
+    private static double nonNull(Double value) {
+        return value != null ? value : 0;
+    }
+}
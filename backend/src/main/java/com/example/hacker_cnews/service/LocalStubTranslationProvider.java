@@ -0,0 +1,76 @@
+package com.example.hacker_cnews.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * 本地桩翻译提供方，不访问网络，用于离线压测整条翻译链路
+ * 结果是确定的（"[译]"加原文），延迟按固定值加每千字符的增量模拟；
+ * failure-every大于0时每N次请求失败一次，用于验证路由的故障转移；
+ * 结果不是真正的译文，不会写入翻译缓存、翻译记忆和新闻记录
+ */
+@Service
+public class LocalStubTranslationProvider implements TranslationProvider {
+
+    public static final String PREFIX = "[译]";
+
+    // 默认关闭，启用后会参与路由并可能被选为最快的提供方，不要在生产环境启用
+    @Value("${translation.provider.stub.enabled:false}")
+    private boolean enabled;
+
+    @Value("${translation.provider.stub.latency-ms:20}")
+    private long latencyMillis;
+
+    @Value("${translation.provider.stub.latency-per-kchar-ms:5}")
+    private long latencyPerThousandCharsMillis;
+
+    @Value("${translation.provider.stub.failure-every:0}")
+    private long failureEvery;
+
+    private final AtomicLong requests = new AtomicLong();
+
+    @Override
+    public String getName() {
+        return "stub";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return enabled;
+    }
+
+    @Override
+    public double getCostPerMillionChars() {
+        return 0;
+    }
+
+    @Override
+    public boolean isPersistable() {
+        return false;
+    }
+
+    @Override
+    public Mono<List<String>> translate(List<String> texts, LongConsumer upstreamLatency) {
+        long request = requests.incrementAndGet();
+        long chars = texts.stream().mapToLong(String::length).sum();
+        Duration latency = Duration.ofMillis(latencyMillis + chars * latencyPerThousandCharsMillis / 1000);
+        if (failureEvery > 0 && request % failureEvery == 0) {
+            return Mono.delay(latency).then(Mono.error(new IllegalStateException("本地桩翻译模拟失败: 第 " + request + " 次请求")));
+        }
+        List<String> results = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            results.add(PREFIX + text);
+        }
+        return Mono.delay(latency)
+                .doOnNext(tick -> upstreamLatency.accept(latency.toNanos()))
+                .thenReturn(results);
+    }
+}
@@ -3,11 +3,16 @@ package com.example.hacker_cnews.service;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,6 +23,7 @@ import org.springframework.stereotype.Service;
 import com.example.hacker_cnews.config.HackerNewsConfig;
 import com.example.hacker_cnews.entity.NewsItem;
 import com.example.hacker_cnews.repository.NewsItemRepository;
+import com.example.hacker_cnews.util.PriorityFetchScheduler;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import reactor.core.publisher.Flux;
@@ -29,45 +35,95 @@ public class NewsUpdateService {
     
     private final HackerNewsService hackerNewsService;
     private final TranslationService translationService;
+    private final TranslationQueueService translationQueue;
     private final NewsItemRepository repository;
     private final CacheService cacheService;
     private final ObjectMapper objectMapper;
     private final HackerNewsConfig hackerNewsConfig;
+    private final ItemRefreshScheduler refreshScheduler;
     
     // 用于跟踪处理失败的ID
     private final Set<Long> failedIds = ConcurrentHashMap.newKeySet();
     
-    // 批处理配置
-    private static final int BATCH_SIZE = 10; // 每批处理的ID数量
-    private static final int BATCH_DELAY_SECONDS = 2; // 批次间延迟秒数
-    private static final int BATCH_CONCURRENCY = 3; // 每批内的并发请求数
+    // 当前是否有更新周期或推送处理在运行：两者互斥执行，历史回填等后台任务也为其让路
+    private final AtomicBoolean updateInProgress = new AtomicBoolean(false);
+    
+    // 推送处理等待正在运行的更新周期结束时的检查间隔
+    private static final Duration UPDATE_WAIT_INTERVAL = Duration.ofSeconds(1);
+    
+    // 失败ID的重试延迟
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(5);
+    
+    // 热门列表推送订阅正常时，定时轮询只在每个全量同步间隔获取一次热门列表，其余周期只按刷新调度刷新到期的条目
+    private volatile boolean pushActive;
+    private final AtomicLong pollsSkipped = new AtomicLong();
+    
+    // 最近一次轮询或推送得到的热门ID列表，推送模式下的刷新周期使用
+    private volatile List<Long> lastTopIds = Collections.emptyList();
+    
+    // 条目处理的优先级调度，更新周期、重试和推送路径共享
+    private final PriorityFetchScheduler fetchScheduler;
+    
+    // 当前（或最近一个）更新周期的统计
+    private volatile CycleStats cycleStats = new CycleStats();
     
     public NewsUpdateService(
             HackerNewsService hackerNewsService,
             TranslationService translationService,
+            TranslationQueueService translationQueue,
             NewsItemRepository repository,
             CacheService cacheService,
             ObjectMapper objectMapper,
-            HackerNewsConfig hackerNewsConfig) {
+            HackerNewsConfig hackerNewsConfig,
+            ItemRefreshScheduler refreshScheduler) {
         this.hackerNewsService = hackerNewsService;
         this.translationService = translationService;
+        this.translationQueue = translationQueue;
         this.repository = repository;
         this.cacheService = cacheService;
         this.objectMapper = objectMapper;
         this.hackerNewsConfig = hackerNewsConfig;
+        this.refreshScheduler = refreshScheduler;
+        this.fetchScheduler = new PriorityFetchScheduler(
+            hackerNewsService::getCurrentFetchLimit,
+            hackerNewsConfig.getPriorityNewShare(),
+            hackerNewsConfig.getPriorityTopRankShare(),
+            hackerNewsConfig.getPriorityRefreshShare());
     }
     
     @Scheduled(fixedDelayString = "${hacker-news.poll.interval}")
     public void updateNews() {
-        logger.info("开始更新新闻数据...");
+        // 推送正常时热门列表的变化已由推送处理，不再获取热门列表，只刷新到期的条目；
+        // 未启用增量同步时没有按条目的刷新调度，直接跳过
+        boolean refreshOnly = pushActive && !lastTopIds.isEmpty() &&
+            pollsSkipped.incrementAndGet() % Math.max(1, hackerNewsConfig.getFullSyncInterval()) != 0;
+        if (refreshOnly && !hackerNewsConfig.isIncrementalSync()) {
+            logger.info("热门列表推送订阅正常，跳过本次轮询");
+            return;
+        }
+        if (!updateInProgress.compareAndSet(false, true)) {
+            logger.info("上一次更新周期或推送处理仍在进行，跳过本次轮询");
+            return;
+        }
         
         // 清空失败ID列表
         failedIds.clear();
+        cycleStats = new CycleStats();
+        
+        if (refreshOnly) {
+            logger.info("热门列表推送订阅正常，本次轮询只刷新到期的条目");
+        } else {
+            logger.info("开始更新新闻数据...");
+        }
+        Mono<List<Long>> topIds = refreshOnly ?
+            Mono.just(lastTopIds) :
+            hackerNewsService.getTopStories(hackerNewsConfig.getItemsLimit())
+                .doOnNext(ids -> lastTopIds = ids);
         
         // 获取ID列表并进行分批处理
-        hackerNewsService.getTopStories(hackerNewsConfig.getItemsLimit())
+        topIds
                 .flatMap(allIds -> {
-                    logger.info("获取到 {} 条热门新闻ID，准备分批处理", allIds.size());
+                    logger.info("{} {} 条热门新闻ID", refreshOnly ? "沿用" : "获取到", allIds.size());
                     
                     // 创建ID到排名的映射
                     Map<Long, Integer> rankMap = new HashMap<>();
@@ -75,104 +131,243 @@ public class NewsUpdateService {
                         rankMap.put(allIds.get(i), i + 1);
                     }
                     
-                    // 将ID列表分成小批次
-                    List<List<Long>> batches = new ArrayList<>();
-                    for (int i = 0; i < allIds.size(); i += BATCH_SIZE) {
-                        int end = Math.min(i + BATCH_SIZE, allIds.size());
-                        batches.add(allIds.subList(i, end));
-                    }
-                    
-                    logger.info("将 {} 个ID分为 {} 个批次处理，每批 {} 个ID", 
-                        allIds.size(), batches.size(), BATCH_SIZE);
-                    
-                    // 顺序处理每个批次，批次之间添加延迟
-                    return Flux.fromIterable(batches)
-                        .index()  // 添加批次索引
-                        .concatMap(tuple -> {
-                            Long batchIndex = tuple.getT1();
-                            List<Long> batchIds = tuple.getT2();
-                            
-                            logger.info("开始处理第 {} 批次，包含 {} 个ID", batchIndex + 1, batchIds.size());
-                            
-                            // 添加延迟，避免请求过于密集
-                            return Mono.delay(Duration.ofSeconds(batchIndex * BATCH_DELAY_SECONDS))
-                                .then(processBatch(batchIds, rankMap));
-                        })
-                        .collectList()
-                        .doOnNext(batchResults -> {
-                            logger.info("所有批次处理完成，总计处理 {} 个批次", batchResults.size());
-                            
-                            // 如果有失败的ID，尝试重新处理
-                            if (!failedIds.isEmpty()) {
-                                logger.info("有 {} 个ID处理失败，将在后续尝试重新处理", failedIds.size());
-                                scheduleRetryFailedIds(rankMap);
-                            }
-                            
-                            // 清理过期新闻
-                            cleanupOldNews();
-                        });
+                    return selectIdsToFetch(allIds, rankMap)
+                        .flatMap(idsToFetch -> processIds(idsToFetch, rankMap));
                 })
+                .doFinally(signal -> updateInProgress.set(false))
                 .subscribe();
     }
     
     /**
-     * 处理一个批次的ID
+     * 当前（或最近一个）更新周期的统计
+     */
+    public Map<String, Object> getCycleStats() {
+        return cycleStats.toMap();
+    }
+    
+    /**
+     * 推送订阅连接正常时设置为true，断开时设置为false以恢复定时轮询
+     */
+    public void setPushActive(boolean active) {
+        if (pushActive != active) {
+            logger.info(active ? "热门列表推送订阅已建立，定时轮询降为兜底" : "热门列表推送订阅断开，恢复定时轮询");
+            pushActive = active;
+        }
+    }
+    
+    /**
+     * 处理推送的热门列表变化：只处理新上榜或排名变化的ID
+     * 与定时轮询的更新周期互斥，有周期在运行时等待其结束后再处理
+     * 
+     * @param topIds 完整的热门ID列表（已按items.limit截断）
+     * @param candidateIds 与上一次推送相比新上榜或排名变化的ID
      */
-    private Mono<List<NewsItem>> processBatch(List<Long> batchIds, Map<Long, Integer> rankMap) {
-        // 处理批次内的每个ID，限制并发数
-        return Flux.fromIterable(batchIds)
+    public Mono<Void> applyPushedTopStories(List<Long> topIds, List<Long> candidateIds) {
+        Map<Long, Integer> rankMap = new HashMap<>();
+        for (int i = 0; i < topIds.size(); i++) {
+            rankMap.put(topIds.get(i), i + 1);
+        }
+        
+        // 只有成功占用后才释放，等待期间被取消不会释放正在运行的周期持有的标记
+        return Mono.usingWhen(acquireUpdate(),
+            acquired -> Mono.fromSupplier(() -> {
+                    lastTopIds = topIds;
+                    cycleStats = new CycleStats();
+                    return classifyIds(candidateIds, rankMap, Collections.<Long>emptySet(), "推送同步");
+                })
+                .flatMap(idsToFetch -> idsToFetch.isEmpty() ? Mono.<Void>empty() : processIds(idsToFetch, rankMap).then()),
+            acquired -> Mono.fromRunnable(() -> updateInProgress.set(false)));
+    }
+    
+    private Mono<Boolean> acquireUpdate() {
+        return Mono.defer(() -> updateInProgress.compareAndSet(false, true) ?
+            Mono.just(true) :
+            Mono.delay(UPDATE_WAIT_INTERVAL).then(acquireUpdate()));
+    }
+    
+    /**
+     * 当前是否有更新周期在运行
+     */
+    public boolean isUpdateInProgress() {
+        return updateInProgress.get();
+    }
+    
+    /**
+     * 确定本周期需要从Hacker News重新获取的ID
+     * 增量模式下新条目总是获取，已存储的条目由刷新调度器按各自的刷新时间和全局预算挑选，
+     * /updates.json中标记为已变更的条目视为立即到期；未被选中的条目只在本地更新排名
+     */
+    private Mono<List<Long>> selectIdsToFetch(List<Long> allIds, Map<Long, Integer> rankMap) {
+        if (!hackerNewsConfig.isIncrementalSync()) {
+            logger.info("未启用增量同步，重新获取全部 {} 个条目", allIds.size());
+            return Mono.just(allIds);
+        }
+        
+        return hackerNewsService.getUpdates()
+                .map(updates -> updates.getItems() != null ? 
+                        new HashSet<>(updates.getItems()) : Collections.<Long>emptySet())
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    logger.warn("无法获取变更列表，本周期只按刷新调度选择条目");
+                    return Collections.<Long>emptySet();
+                }))
+                .map(changedIds -> classifyIds(allIds, rankMap, changedIds, "增量同步"));
+    }
+    
+    /**
+     * 将候选ID分为需要重新获取的和只需更新排名的，后者直接更新本地排名
+     * 新条目和不完整的记录必须获取，其余已存储的记录交给刷新调度器判断是否到期
+     * 
+     * @param changedIds 已知内容有变更的ID
+     * @return 需要重新获取的ID
+     */
+    private List<Long> classifyIds(List<Long> candidateIds, Map<Long, Integer> rankMap, Set<Long> changedIds, String source) {
+        // 一次查询取出候选ID中已存储的记录
+        Map<Long, NewsItem> storedItems = new HashMap<>();
+        for (NewsItem item : repository.findAllById(candidateIds)) {
+            storedItems.put(item.getId(), item);
+        }
+        
+        List<Long> idsToFetch = new ArrayList<>();
+        List<Long> schedulable = new ArrayList<>();
+        int newCount = 0;
+        int incompleteCount = 0;
+        
+        for (Long id : candidateIds) {
+            NewsItem stored = storedItems.get(id);
+            if (stored == null) {
+                // 新出现的ID，必须获取
+                idsToFetch.add(id);
+                newCount++;
+            } else if (stored.getTitleEn() == null || stored.getTitleEn().trim().isEmpty() ||
+                    Boolean.TRUE.equals(stored.getBackfilled())) {
+                // 不完整或回填后重新上榜的记录，重新获取
+                idsToFetch.add(id);
+                incompleteCount++;
+            } else {
+                schedulable.add(id);
+            }
+        }
+        
+        List<Long> dueIds = refreshScheduler.selectDue(schedulable, changedIds, idsToFetch.size());
+        idsToFetch.addAll(dueIds);
+        
+        // 未到期的条目只更新本地排名，排名变化也计入该条目的速度
+        Set<Long> dueSet = new HashSet<>(dueIds);
+        int rankOnlyCount = 0;
+        for (Long id : schedulable) {
+            NewsItem stored = storedItems.get(id);
+            if (!dueSet.contains(id) && !rankMap.get(id).equals(stored.getRank())) {
+                updateStoredRank(stored, rankMap.get(id));
+                refreshScheduler.observeRank(id, rankMap.get(id));
+                rankOnlyCount++;
+            }
+        }
+        
+        logger.info("{}: 新条目={}, 不完整={}, 到期刷新={}, 仅更新排名={}, 跳过={}", source,
+            newCount, incompleteCount, dueIds.size(), rankOnlyCount, 
+            schedulable.size() - dueIds.size() - rankOnlyCount);
+        return idsToFetch;
+    }
+    
+    /**
+     * 仅更新已存储新闻的排名，并使缓存失效，同时刷新指纹
+     */
+    private void updateStoredRank(NewsItem stored, Integer rank) {
+        Long id = stored.getId();
+        try {
+            repository.updateRank(id, rank, Instant.now());
+            cacheService.evictNewsItem(id);
+            rememberFingerprint(stored, fingerprint(rank, stored.getScore(), stored.getTitleEn(), stored.getUrl()));
+        } catch (Exception e) {
+            logger.error("更新排名时出错 ID: {}, 错误: {}", id, e.getMessage());
+        }
+    }
+    
+    /**
+     * 处理需要获取的ID，完成后重试失败的ID并清理过期新闻
+     */
+    private Mono<List<NewsItem>> processIds(List<Long> ids, Map<Long, Integer> rankMap) {
+        logger.info("开始处理 {} 个ID，当前并发上限 {}", ids.size(), 
+            hackerNewsService.getFetchLimiterStats().get("limit"));
+        
+        return processAll(ids, rankMap)
+            .doOnNext(results -> {
+                // 如果有失败的ID，尝试重新处理
+                if (!failedIds.isEmpty()) {
+                    logger.info("有 {} 个ID处理失败，将在后续尝试重新处理", failedIds.size());
+                    scheduleRetryFailedIds(rankMap);
+                }
+                
+                // 保存刷新调度状态
+                refreshScheduler.flush();
+                
+                // 清理过期新闻
+                cleanupOldNews();
+            });
+    }
+    
+    /**
+     * 处理一组ID
+     * 所有ID立即提交给优先级调度器，由调度器按当前并发上限和各级份额决定处理顺序
+     */
+    private Mono<List<NewsItem>> processAll(List<Long> ids, Map<Long, Integer> rankMap) {
+        if (ids.isEmpty()) {
+            return Mono.just(Collections.emptyList());
+        }
+        Set<Long> existingIds = new HashSet<>(repository.findExistingIds(ids));
+        
+        return Flux.fromIterable(ids)
             .flatMap(id -> {
                 int rank = rankMap.getOrDefault(id, 999); // 使用映射中的排名
-                return processNewsItem(id, rank)
+                return fetchScheduler.submit(priorityOf(id, rank, existingIds), () -> processNewsItem(id, rank))
                     .doOnError(e -> {
                         // 记录失败的ID，便于后续重试
                         failedIds.add(id);
                         logger.error("处理ID{}时出错: {}", id, e.getMessage());
                     })
                     .onErrorResume(e -> Mono.empty()); // 继续处理其他ID
-            }, BATCH_CONCURRENCY) // 限制并发请求数
+            }, ids.size())
             .collectList()
-            .doOnNext(results -> {
-                int successCount = results.size();
-                int failureCount = batchIds.size() - successCount;
-                logger.info("批次处理完成: 成功={}, 失败={}", successCount, failureCount);
-            });
+            .doOnNext(results -> logger.info("处理完成: 写入={}, 周期统计={}", results.size(), cycleStats.toMap()));
+    }
+    
+    private PriorityFetchScheduler.Priority priorityOf(Long id, int rank, Set<Long> existingIds) {
+        if (!existingIds.contains(id)) {
+            return PriorityFetchScheduler.Priority.NEW;
+        }
+        return rank <= hackerNewsConfig.getPriorityTopRankThreshold() ?
+            PriorityFetchScheduler.Priority.TOP_RANK : PriorityFetchScheduler.Priority.REFRESH;
+    }
+    
+    /**
+     * 条目处理优先级调度的统计
+     */
+    public Map<String, Object> getSchedulerStats() {
+        return fetchScheduler.getStats();
+    }
+    
+    /**
+     * 条目刷新调度的统计
+     */
+    public Map<String, Object> getRefreshStats() {
+        return refreshScheduler.getStats();
     }
     
     /**
      * 安排重试失败的ID
+     * 与正常路径共享同一个并发限制器，上游过载时重试会自动放慢
      */
     private void scheduleRetryFailedIds(Map<Long, Integer> rankMap) {
         // 复制失败ID列表，避免并发修改
         List<Long> idsToRetry = new ArrayList<>(failedIds);
         failedIds.clear(); // 清空原列表
         
-        logger.info("开始重试 {} 个失败的ID", idsToRetry.size());
+        logger.info("{} 秒后重试 {} 个失败的ID", RETRY_DELAY.getSeconds(), idsToRetry.size());
         
-        // 将失败ID分成更小的批次，增加间隔，减小并发
-        List<List<Long>> retryBatches = new ArrayList<>();
-        for (int i = 0; i < idsToRetry.size(); i += 5) { // 每批5个，比正常批次更小
-            int end = Math.min(i + 5, idsToRetry.size());
-            retryBatches.add(idsToRetry.subList(i, end));
-        }
-        
-        // 重试失败的ID
-        Flux.fromIterable(retryBatches)
-            .index()
-            .concatMap(tuple -> {
-                Long batchIndex = tuple.getT1();
-                List<Long> batchIds = tuple.getT2();
-                
-                // 增加更长的延迟
-                return Mono.delay(Duration.ofSeconds(batchIndex * 3 + 5))
-                    .then(Mono.defer(() -> {
-                        logger.info("重试批次 {}: {}", batchIndex + 1, batchIds);
-                        return processBatch(batchIds, rankMap);
-                    }));
-            })
-            .collectList()
+        Mono.delay(RETRY_DELAY)
+            .then(Mono.defer(() -> processAll(idsToRetry, rankMap)))
             .subscribe(
-                results -> logger.info("重试完成，处理了 {} 个批次", results.size()),
+                results -> logger.info("重试完成，成功处理 {} 个ID", results.size()),
                 error -> logger.error("重试过程中出错: {}", error.getMessage())
             );
     }
@@ -181,14 +376,15 @@ public class NewsUpdateService {
      * 清理过期新闻，保留最新的N条（按更新时间和排名排序）
      */
     private void cleanupOldNews() {
-        long count = repository.count();
+        // 历史回填的记录不参与清理
+        long count = repository.countByBackfilledIsNullOrBackfilledFalse();
         int maxItems = hackerNewsConfig.getMaxStoredItems();
         
         if (count > maxItems) {
             logger.info("新闻数量超过最大限制，开始清理...");
             
             // 修改排序逻辑：优先按最后更新时间降序排序，其次按排名升序排序
-            List<NewsItem> allNews = repository.findAll(
+            List<NewsItem> allNews = repository.findByBackfilledIsNullOrBackfilledFalse(
                 Sort.by(Sort.Direction.DESC, "lastUpdated")
                     .and(Sort.by(Sort.Direction.ASC, "rank"))
             );
@@ -205,6 +401,9 @@ public class NewsUpdateService {
                 if (!idsToDelete.isEmpty()) {
                     logger.info("删除 {} 条旧新闻", idsToDelete.size());
                     repository.deleteAllById(idsToDelete);
+                    cacheService.evictItemFingerprints(idsToDelete);
+                    refreshScheduler.forget(idsToDelete);
+                    translationQueue.forget(idsToDelete);
                 }
             }
         }
@@ -229,6 +428,21 @@ public class NewsUpdateService {
                         return Mono.empty();
                     }
                     
+                    CycleStats stats = cycleStats;
+                    stats.fetched.incrementAndGet();
+                    
+                    // 记录分数和排名，计算该条目的下次刷新时间
+                    refreshScheduler.recordRefresh(hnItem.getId(), hnItem.getScore(), rank);
+                    
+                    // 可变字段指纹未变，不需要任何数据库读写和缓存写入
+                    long fingerprint = fingerprint(rank, hnItem.getScore(), hnItem.getTitle(), hnItem.getUrl());
+                    Long knownFingerprint = cacheService.getItemFingerprint(hnItem.getId());
+                    if (knownFingerprint != null && knownFingerprint == fingerprint) {
+                        logger.debug("新闻指纹未变，跳过: {}", hnItem.getId());
+                        stats.fingerprintSkipped.incrementAndGet();
+                        return Mono.empty();
+                    }
+                    
                     // 检查数据库是否已存在
                     NewsItem existingItem = null;
                     if (repository.existsById(hnItem.getId())) {
@@ -266,11 +480,26 @@ public class NewsUpdateService {
                                 updated = true;
                             }
                             
+                            // 历史回填的记录重新进入热门列表，转为普通记录
+                            if (Boolean.TRUE.equals(existingItem.getBackfilled())) {
+                                existingItem.setBackfilled(false);
+                                updated = true;
+                            }
+                            
+                            // 还没有中文标题（仍在翻译队列中，或入队前进程中断）或保存的是旧的失败提示，确保有待翻译任务
+                            if (existingItem.getTitleZh() == null || TranslationService.isUnavailable(existingItem.getTitleZh())) {
+                                translationQueue.enqueue(existingItem.getId());
+                            }
+                            
                             // 如果有更新，更新最后更新时间
                             if (updated) {
                                 existingItem.setLastUpdated(Instant.now());
-                                // 修复：将同步save操作转换为Mono
-                                NewsItem savedItem = repository.save(existingItem);
+                                // 只更新刷新的字段：读取之后翻译队列可能已写回译文，整条save会把它覆盖回读取时的值
+                                repository.updateRefreshedFields(existingItem.getId(), existingItem.getRank(),
+                                    existingItem.getScore(), existingItem.getTitleEn(), existingItem.getUrl(),
+                                    existingItem.getBackfilled(), existingItem.getLastUpdated());
+                                // 重新读取，缓存中包含并发写回的译文
+                                NewsItem savedItem = repository.findById(existingItem.getId()).orElse(existingItem);
                                 // 添加：在数据库更新后立即更新缓存
                                 try {
                                     cacheService.cacheNewsItem(savedItem.getId(), savedItem);
@@ -279,9 +508,13 @@ public class NewsUpdateService {
                                      // 捕获可能的Redis序列化/连接错误
                                     logger.error("更新缓存时出错 ID: {}, 错误: {}", savedItem.getId(), e.getMessage());
                                 }
+                                rememberFingerprint(savedItem, fingerprint);
+                                stats.updated.incrementAndGet();
                                 return Mono.just(savedItem);
                             }
                             
+                            rememberFingerprint(existingItem, fingerprint);
+                            stats.unchanged.incrementAndGet();
                             return Mono.just(existingItem);
                         }
                     }
@@ -307,59 +540,27 @@ public class NewsUpdateService {
                         logger.error("序列化评论ID时出错: {}", e.getMessage());
                     }
                     
-                    // 查找缓存中是否有翻译
-                    String cachedTitle = cacheService.getCachedTranslation(hnItem.getTitle());
+                    // 只使用已有的翻译缓存，未命中的字段由翻译队列异步翻译，新闻先以英文入库
+                    String cachedTitle = translationService.getCachedTitleTranslation(hnItem.getTitle());
                     String cachedText = hnItem.getText() != null ? 
                             cacheService.getCachedTranslation(hnItem.getText()) : null;
+                    newsItem.setTitleZh(cachedTitle);
+                    newsItem.setTextZh(hnItem.getText() != null ? cachedText : "");
                     
-                    logger.info("开始翻译标题: {}", hnItem.getTitle());
-                    Mono<String> titleTranslation = cachedTitle != null ? 
-                            Mono.just(cachedTitle) : 
-                            translationService.translateEnToZh(hnItem.getTitle())
-                                .doOnError(e -> logger.error("翻译标题出错: {}", e.getMessage()));
+                    // 缓存新闻项
+                    cacheService.cacheNewsItem(newsItem.getId(), newsItem);
+                    logger.info("新闻项已缓存: {}", newsItem.getId());
                     
-                    Mono<String> textTranslation = Mono.just("");
-                    if (hnItem.getText() != null) {
-                        logger.info("开始翻译正文");
-                        textTranslation = cachedText != null ? 
-                                Mono.just(cachedText) : 
-                                translationService.translateEnToZh(hnItem.getText())
-                                    .doOnError(e -> logger.error("翻译正文出错: {}", e.getMessage()));
+                    // 先保存新闻再登记翻译任务：两步之间进程中断时，下次刷新发现没有中文标题会重新登记
+                    NewsItem savedItem = repository.save(newsItem);
+                    // 正文按需翻译时只为标题登记任务
+                    boolean bodyPending = !translationQueue.isLazyBodies() && hnItem.getText() != null && cachedText == null;
+                    if (cachedTitle == null || bodyPending) {
+                        translationQueue.enqueue(savedItem.getId());
                     }
-                    
-                    return Mono.zip(titleTranslation, textTranslation)
-                            .map(tuple -> {
-                                String translatedTitle = tuple.getT1();
-                                String translatedText = tuple.getT2();
-                                
-                                logger.info("翻译完成, 标题: {}", translatedTitle);
-                                
-                                // 保存到缓存
-                                if (cachedTitle == null) {
-                                    cacheService.cacheTranslation(hnItem.getTitle(), translatedTitle);
-                                }
-                                
-                                if (cachedText == null && hnItem.getText() != null) {
-                                    cacheService.cacheTranslation(hnItem.getText(), translatedText);
-                                }
-                                
-                                newsItem.setTitleZh(translatedTitle);
-                                newsItem.setTextZh(translatedText);
-                                
-                                // 确保ID已设置
-                                if (newsItem.getId() == null) {
-                                    logger.error("新闻项ID为NULL，设置为原始ID: {}", hnItem.getId());
-                                    newsItem.setId(hnItem.getId());
-                                }
-                                
-                                // 缓存新闻项
-                                cacheService.cacheNewsItem(newsItem.getId(), newsItem);
-                                logger.info("新闻项已缓存: {}", newsItem.getId());
-                                
-                                // 保存到数据库并返回结果
-                                NewsItem savedItem = repository.save(newsItem);
-                                return savedItem;
-                            });
+                    rememberFingerprint(savedItem, fingerprint);
+                    stats.created.incrementAndGet();
+                    return Mono.just(savedItem);
                 })
                 .doOnSuccess(item -> {
                     if (item != null) {
@@ -373,6 +574,36 @@ public class NewsUpdateService {
                 .onErrorResume(e -> Mono.empty());
     }
     
+    /**
+     * 计算新闻可变字段（排名、分数、标题、URL）的64位指纹（FNV-1a）
+     */
+    private static long fingerprint(Integer rank, Integer score, String title, String url) {
+        String source = rank + "|" + score + "|" + title + "|" + url;
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < source.length(); i++) {
+            hash ^= source.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+    
+    /**
+     * 记住新闻的指纹，之后指纹未变的刷新直接跳过；
+     * 还没有中文标题的新闻不记住，每次刷新都走完整路径，检查并补登记翻译任务（如入队前进程中断、任务丢失）
+     */
+    private void rememberFingerprint(NewsItem item, long fingerprint) {
+        Long id = item.getId();
+        try {
+            if (item.getTitleZh() == null || TranslationService.isUnavailable(item.getTitleZh())) {
+                cacheService.evictItemFingerprints(List.of(id));
+                return;
+            }
+            cacheService.cacheItemFingerprint(id, fingerprint);
+        } catch (Exception e) {
+            logger.error("保存新闻指纹时出错 ID: {}, 错误: {}", id, e.getMessage());
+        }
+    }
+    
     /**
      * 修复数据库中不完整的记录
      * 可以通过API手动触发
@@ -380,15 +611,8 @@ public class NewsUpdateService {
     public Mono<Void> fixIncompleteRecords() {
         logger.info("开始修复不完整的记录...");
         
-        // 查找所有不完整的记录（没有标题或排名或分数为空）
-        return Mono.fromCallable(() -> 
-            repository.findAll().stream()
-                .filter(item -> item.getTitleEn() == null || 
-                              item.getTitleEn().trim().isEmpty() || 
-                              item.getRank() == null || 
-                              item.getScore() == null)
-                .toList()
-        )
+        // 查找所有不完整的记录（没有标题或排名或分数为空），历史回填的记录本身没有排名，不在修复范围内
+        return Mono.fromCallable(() -> repository.findIncomplete())
         .flatMapMany(incompleteItems -> {
             logger.info("找到 {} 条不完整的记录", incompleteItems.size());
             
@@ -419,7 +643,7 @@ public class NewsUpdateService {
                                     logger.error("修复记录时发生错误 ID: {}, 错误: {}", item.getId(), e.getMessage());
                                     return Mono.empty();
                                 });
-                        }, 3); // 限制并发为3
+                        }, hackerNewsService.getMaxFetchConcurrency()); // 实际并发由限制器控制
                 })
                 .onErrorResume(e -> {
                     logger.error("获取最新排名时发生错误: {}", e.getMessage());
@@ -428,4 +652,27 @@ public class NewsUpdateService {
         })
         .then();
     }
+    
+    /**
+     * 单个更新周期的处理统计（包括该周期触发的重试）
+     */
+    private static class CycleStats {
+        private final Instant startedAt = Instant.now();
+        private final AtomicInteger fetched = new AtomicInteger();
+        private final AtomicInteger fingerprintSkipped = new AtomicInteger();
+        private final AtomicInteger unchanged = new AtomicInteger();
+        private final AtomicInteger updated = new AtomicInteger();
+        private final AtomicInteger created = new AtomicInteger();
+        
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("startedAt", startedAt.toString());
+            map.put("fetched", fetched.get());
+            map.put("fingerprintSkipped", fingerprintSkipped.get());
+            map.put("unchanged", unchanged.get());
+            map.put("updated", updated.get());
+            map.put("created", created.get());
+            return map;
+        }
+    }
 } 
\ No newline at end of file
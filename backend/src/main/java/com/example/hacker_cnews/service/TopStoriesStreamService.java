@@ -0,0 +1,306 @@
+package com.example.hacker_cnews.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.example.hacker_cnews.config.HackerNewsConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import reactor.util.retry.Retry;
+
+/**
+ * 热门列表推送订阅
+ * 以text/event-stream方式订阅Firebase的/topstories.json，每次推送（put/patch）后与上一次处理的列表比较，
+ * 只把新上榜和排名变化的ID交给NewsUpdateService处理
+ *
+ * 连接断开或长时间没有事件（包括keep-alive）时按退避重连，断开期间恢复定时轮询
+ */
+@Service
+public class TopStoriesStreamService {
+    private static final Logger logger = LoggerFactory.getLogger(TopStoriesStreamService.class);
+
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> EVENT_TYPE =
+            new ParameterizedTypeReference<ServerSentEvent<String>>() { };
+
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+    private final NewsUpdateService newsUpdateService;
+    private final HackerNewsConfig hackerNewsConfig;
+
+    private volatile Disposable subscription;
+    private volatile boolean connected;
+    private volatile Instant lastEventAt;
+
+    // 最近一次已处理的热门列表（前items.limit个）
+    private volatile List<Long> appliedTopIds = new ArrayList<>();
+
+    private final AtomicLong connects = new AtomicLong();
+    private final AtomicLong reconnects = new AtomicLong();
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong snapshotsApplied = new AtomicLong();
+    private final AtomicLong idsEnqueued = new AtomicLong();
+
+    public TopStoriesStreamService(
+            WebClient.Builder webClientBuilder,
+            ObjectMapper objectMapper,
+            NewsUpdateService newsUpdateService,
+            HackerNewsConfig hackerNewsConfig,
+            @Qualifier("hackerNewsHttpClient") HttpClient httpClient) {
+        this.objectMapper = objectMapper;
+        this.newsUpdateService = newsUpdateService;
+        this.hackerNewsConfig = hackerNewsConfig;
+        // Firebase会把流式请求重定向到具体的数据库节点
+        this.webClient = webClientBuilder
+                .baseUrl(hackerNewsConfig.getApiBaseUrl())
+                .clientConnector(new ReactorClientHttpConnector(httpClient.followRedirect(true)))
+                .build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnBoot() {
+        if (hackerNewsConfig.isStreamEnabled()) {
+            start();
+        }
+    }
+
+    /**
+     * 建立推送订阅，之后自动重连直到stop()
+     */
+    public synchronized boolean start() {
+        if (isRunning()) {
+            return false;
+        }
+        logger.info("开始订阅热门列表推送: {}/topstories.json", hackerNewsConfig.getApiBaseUrl());
+
+        subscription = Flux.defer(this::openStream)
+                .concatWith(Mono.error(() -> new IllegalStateException("推送连接被服务端关闭")))
+                .doOnError(e -> markDisconnected(e.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofMillis(hackerNewsConfig.getStreamMinBackoffMillis()))
+                        .maxBackoff(Duration.ofMillis(hackerNewsConfig.getStreamMaxBackoffMillis()))
+                        // 连接正常工作过一段时间后再断开，退避从头开始
+                        .transientErrors(true)
+                        .doBeforeRetry(signal -> {
+                            reconnects.incrementAndGet();
+                            logger.info("重新连接热门列表推送 (第{}次)", signal.totalRetriesInARow() + 1);
+                        }))
+                .map(this::topSlice)
+                // 处理跟不上推送时只保留最新的列表
+                .onBackpressureLatest()
+                .concatMap(this::applySnapshot, 1)
+                .doFinally(signal -> markDisconnected("订阅结束: " + signal))
+                .subscribe(
+                    null,
+                    e -> logger.error("热门列表推送订阅异常终止: {}", e.getMessage(), e));
+        return true;
+    }
+
+    public synchronized void stop() {
+        if (subscription != null && !subscription.isDisposed()) {
+            logger.info("停止热门列表推送订阅");
+            subscription.dispose();
+        }
+    }
+
+    public boolean isRunning() {
+        return subscription != null && !subscription.isDisposed();
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("running", isRunning());
+        status.put("connected", connected);
+        status.put("lastEventAt", lastEventAt != null ? lastEventAt.toString() : null);
+        status.put("connects", connects.get());
+        status.put("reconnects", reconnects.get());
+        status.put("events", events.get());
+        status.put("snapshotsApplied", snapshotsApplied.get());
+        status.put("idsEnqueued", idsEnqueued.get());
+        status.put("trackedTopIds", appliedTopIds.size());
+        return status;
+    }
+
+    /**
+     * 打开一次SSE连接，把put/patch事件折叠为完整的ID列表
+     * 每个连接有自己的列表状态，重连后以服务端首个put为准
+     */
+    private Flux<List<Long>> openStream() {
+        List<Long> current = new ArrayList<>();
+        return webClient.get()
+                .uri("/topstories.json")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .retrieve()
+                .bodyToFlux(EVENT_TYPE)
+                .doOnSubscribe(s -> connects.incrementAndGet())
+                // keep-alive事件也算，长时间什么都没收到说明连接已经失效
+                .timeout(Duration.ofMillis(hackerNewsConfig.getStreamIdleTimeoutMillis()))
+                .handle((event, sink) -> {
+                    events.incrementAndGet();
+                    lastEventAt = Instant.now();
+                    String type = event.event() != null ? event.event() : "";
+                    switch (type) {
+                        case "put":
+                        case "patch":
+                            if (applyEvent(current, type, event.data())) {
+                                markConnected();
+                                sink.next(new ArrayList<>(current));
+                            }
+                            break;
+                        case "keep-alive":
+                            break;
+                        case "cancel":
+                        case "auth_revoked":
+                            sink.error(new IllegalStateException("服务端取消了推送订阅: " + type));
+                            break;
+                        default:
+                            logger.debug("忽略未知推送事件: {}", type);
+                    }
+                });
+    }
+
+    /**
+     * 按Firebase REST流式协议更新列表：
+     * put {"path":"/","data":[...]} 替换整个列表，put {"path":"/N","data":id} 设置第N个元素，
+     * patch {"path":"/","data":{"N":id,...}} 设置多个元素
+     *
+     * @return 列表是否被修改
+     */
+    private boolean applyEvent(List<Long> current, String type, String data) {
+        if (data == null || data.isEmpty() || "null".equals(data)) {
+            return false;
+        }
+        try {
+            JsonNode root = objectMapper.readTree(data);
+            String path = root.path("path").asText("/");
+            JsonNode value = root.get("data");
+
+            if ("put".equals(type) && "/".equals(path)) {
+                current.clear();
+                if (value != null && value.isArray()) {
+                    value.forEach(id -> current.add(id.asLong()));
+                }
+                return true;
+            }
+            if ("put".equals(type)) {
+                setIndex(current, Integer.parseInt(path.substring(1)), value);
+                return true;
+            }
+            if (value != null && value.isObject()) {
+                String prefix = "/".equals(path) ? "" : path.substring(1) + "/";
+                Iterator<Map.Entry<String, JsonNode>> fields = value.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    setIndex(current, Integer.parseInt(prefix + field.getKey()), field.getValue());
+                }
+                return true;
+            }
+        } catch (Exception e) {
+            logger.warn("无法解析推送事件 {}: {} - {}", type, data, e.getMessage());
+        }
+        return false;
+    }
+
+    private static void setIndex(List<Long> current, int index, JsonNode value) {
+        if (value == null || value.isNull()) {
+            // 删除元素时Firebase发送null，列表末尾的删除直接截断
+            if (index < current.size()) {
+                current.set(index, null);
+            }
+        } else {
+            while (current.size() <= index) {
+                current.add(null);
+            }
+            current.set(index, value.asLong());
+        }
+        while (!current.isEmpty() && current.get(current.size() - 1) == null) {
+            current.remove(current.size() - 1);
+        }
+    }
+
+    private List<Long> topSlice(List<Long> ids) {
+        List<Long> top = new ArrayList<>();
+        for (Long id : ids) {
+            if (id != null) {
+                top.add(id);
+                if (top.size() >= hackerNewsConfig.getItemsLimit()) {
+                    break;
+                }
+            }
+        }
+        return top;
+    }
+
+    /**
+     * 与上一次处理的列表比较，只处理新上榜和排名变化的ID
+     */
+    private Mono<Void> applySnapshot(List<Long> topIds) {
+        List<Long> previous = appliedTopIds;
+        Map<Long, Integer> previousRanks = new HashMap<>();
+        for (int i = 0; i < previous.size(); i++) {
+            previousRanks.put(previous.get(i), i);
+        }
+
+        List<Long> candidates = new ArrayList<>();
+        for (int i = 0; i < topIds.size(); i++) {
+            Integer previousRank = previousRanks.get(topIds.get(i));
+            if (previousRank == null || previousRank != i) {
+                candidates.add(topIds.get(i));
+            }
+        }
+        if (candidates.isEmpty()) {
+            appliedTopIds = topIds;
+            return Mono.empty();
+        }
+
+        snapshotsApplied.incrementAndGet();
+        idsEnqueued.addAndGet(candidates.size());
+        logger.info("热门列表推送: {} 个ID新上榜或排名变化", candidates.size());
+        // 处理成功后才记为已处理；失败时下一次推送仍与旧列表比较，这些ID会再次被处理
+        return Mono.defer(() -> newsUpdateService.applyPushedTopStories(topIds, candidates))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then(Mono.<Void>fromRunnable(() -> appliedTopIds = topIds))
+                .onErrorResume(e -> {
+                    logger.error("处理推送的热门列表时出错: {}", e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private void markConnected() {
+        if (!connected) {
+            connected = true;
+            logger.info("热门列表推送已连接");
+            newsUpdateService.setPushActive(true);
+        }
+    }
+
+    private void markDisconnected(String reason) {
+        if (connected) {
+            connected = false;
+            logger.warn("热门列表推送断开: {}", reason);
+            newsUpdateService.setPushActive(false);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.hacker_cnews.service;
+
+import java.util.List;
+import java.util.function.LongConsumer;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * 英译中翻译服务提供方，由TranslationProviderRouter按延迟和健康状态选择
+ */
+public interface TranslationProvider {
+
+    /**
+     * 提供方名称，用于配置、日志和统计
+     */
+    String getName();
+
+    /**
+     * 是否可以接收请求（已配置、未耗尽配额等）；不可用的提供方不参与路由
+     */
+    boolean isAvailable();
+
+    /**
+     * 每百万字符的费用，用于估算各提供方的翻译成本
+     */
+    double getCostPerMillionChars();
+
+    /**
+     * 结果是否是真正的译文，可以写入翻译缓存、翻译记忆和新闻记录；压测用的本地桩返回false
+     */
+    default boolean isPersistable() {
+        return true;
+    }
+
+    /**
+     * 一次翻译多段文本，结果与输入按顺序一一对应；某段没有结果时该位置为null
+     *
+     * @param upstreamLatency 接收成功的那次上游调用本身的耗时（纳秒），不含本地限流等待和重试前的退避，用于路由的延迟统计
+     */
+    Mono<List<String>> translate(List<String> texts, LongConsumer upstreamLatency);
+
+    /**
+     * 一段译文及其来源
+     */
+    final class Result {
+        // 来自缓存（或不需要翻译的空文本）的结果
+        public static final String STORED = "cache";
+
+        private final String text;
+        private final String provider;
+        private final boolean persistable;
+
+        public Result(String text, String provider, boolean persistable) {
+            this.text = text;
+            this.provider = provider;
+            this.persistable = persistable;
+        }
+
+        public static Result stored(String text) {
+            return new Result(text, STORED, true);
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public String getProvider() {
+            return provider;
+        }
+
+        public boolean isPersistable() {
+            return persistable;
+        }
+
+        /**
+         * 来源不变、文本替换后的结果（如拼接标题前缀、合并分段）
+         */
+        public Result withText(String text) {
+            return new Result(text, provider, persistable);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.hacker_cnews.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.example.hacker_cnews.util.CircuitBreaker;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 在多个翻译提供方之间路由
+ * 可用且熔断器未打开的提供方按平均延迟（EWMA）从低到高排序，还没有延迟样本的排在最前；
+ * 调用失败时依次转移到下一个提供方，请求内容本身的错误（400/413）不转移，交给批处理器拆分；
+ * 每probe-every次请求把第二名放到最前试探一次，让变慢后又恢复的提供方有机会重新被选中；
+ * 延迟只统计提供方上报的上游调用耗时，提供方自身的限流等待不会让它显得变慢；
+ * 结果带上提供方名称和能否持久化，调用方据此决定是否写入缓存和数据库
+ */
+@Service
+public class TranslationProviderRouter {
+    private static final Logger logger = LoggerFactory.getLogger(TranslationProviderRouter.class);
+
+    private final List<ProviderState> providers = new ArrayList<>();
+    private final double latencyAlpha;
+    private final long probeEvery;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failovers = new AtomicLong();
+    private final AtomicLong probes = new AtomicLong();
+    private final AtomicLong noProvider = new AtomicLong();
+
+    public TranslationProviderRouter(
+            List<TranslationProvider> translationProviders,
+            @Value("${translation.router.latency-alpha:0.2}") double latencyAlpha,
+            @Value("${translation.router.probe-every:20}") long probeEvery,
+            @Value("${translation.router.breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+            @Value("${translation.router.breaker.window-size:20}") int windowSize,
+            @Value("${translation.router.breaker.minimum-calls:5}") int minimumCalls,
+            @Value("${translation.router.breaker.open-duration-ms:30000}") long openDurationMillis,
+            @Value("${translation.router.breaker.half-open-calls:1}") int halfOpenCalls) {
+        this.latencyAlpha = latencyAlpha;
+        this.probeEvery = probeEvery;
+        for (TranslationProvider provider : translationProviders) {
+            providers.add(new ProviderState(provider, new CircuitBreaker("translation-" + provider.getName(),
+                    failureRateThreshold, windowSize, minimumCalls, Duration.ofMillis(openDurationMillis),
+                    halfOpenCalls, error -> !isRequestSpecificError(error))));
+        }
+        logger.info("翻译提供方: {}", providers.stream().map(state -> state.provider.getName()).toList());
+    }
+
+    /**
+     * 用当前最合适的提供方翻译一批文本，失败时转移到下一个提供方
+     * 结果与输入按顺序一一对应，提供方没有给出结果的位置为null
+     */
+    public Mono<List<TranslationProvider.Result>> translate(List<String> texts) {
+        return Mono.defer(() -> {
+            List<ProviderState> candidates = rankCandidates(requests.incrementAndGet());
+            if (candidates.isEmpty()) {
+                noProvider.incrementAndGet();
+                return Mono.error(new NoTranslationProviderException());
+            }
+            return attempt(candidates, 0, texts);
+        });
+    }
+
+    private Mono<List<TranslationProvider.Result>> attempt(List<ProviderState> candidates, int index, List<String> texts) {
+        ProviderState state = candidates.get(index);
+        return state.breaker.run(() -> call(state, texts).map(results -> tag(state.provider, results)))
+                .onErrorResume(error -> index + 1 < candidates.size() && !isRequestSpecificError(error), error -> {
+                    failovers.incrementAndGet();
+                    logger.warn("翻译提供方[{}]失败，转移到[{}]: {}", state.provider.getName(),
+                            candidates.get(index + 1).provider.getName(), error.getMessage());
+                    return attempt(candidates, index + 1, texts);
+                });
+    }
+
+    private Mono<List<String>> call(ProviderState state, List<String> texts) {
+        long chars = texts.stream().mapToLong(String::length).sum();
+        return Mono.defer(() -> {
+            state.requests.incrementAndGet();
+            LongConsumer upstreamLatency = nanos -> state.recordLatency(nanos / 1_000_000.0, latencyAlpha);
+            return state.provider.translate(texts, upstreamLatency)
+                    .doOnNext(results -> state.chars.addAndGet(chars))
+                    .doOnError(error -> state.errors.incrementAndGet());
+        });
+    }
+
+    private static List<TranslationProvider.Result> tag(TranslationProvider provider, List<String> texts) {
+        List<TranslationProvider.Result> results = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            results.add(text == null ? null :
+                    new TranslationProvider.Result(text, provider.getName(), provider.isPersistable()));
+        }
+        return results;
+    }
+
+    private List<ProviderState> rankCandidates(long request) {
+        List<ProviderState> candidates = new ArrayList<>();
+        List<ProviderState> open = new ArrayList<>();
+        for (ProviderState state : providers) {
+            if (!state.provider.isAvailable()) {
+                continue;
+            }
+            (state.breaker.getState() == CircuitBreaker.State.OPEN ? open : candidates).add(state);
+        }
+        candidates.sort(Comparator.comparingDouble(ProviderState::getLatencyMillis));
+        // 熔断器打开的提供方排在最后，作为其他提供方都失败时的最后尝试（仍在打开期内时会被直接短路）
+        candidates.addAll(open);
+        if (probeEvery > 0 && candidates.size() > 1 && request % probeEvery == 0) {
+            probes.incrementAndGet();
+            candidates.add(0, candidates.remove(1));
+        }
+        return candidates;
+    }
+
+    /**
+     * 分别用每个提供方翻译同一段文本，不经过缓存和批处理，用于对比翻译质量
+     * 结果按提供方注册顺序排列，失败或未启用的提供方给出原因
+     */
+    public Mono<Map<String, String>> translateWithEach(String text) {
+        return Flux.fromIterable(providers)
+                .flatMapSequential(state -> {
+                    if (!state.provider.isAvailable()) {
+                        return Mono.just(Map.entry(state.provider.getName(), "（未启用）"));
+                    }
+                    return call(state, List.of(text))
+                            .map(results -> results.isEmpty() || results.get(0) == null ? "（无结果）" : results.get(0))
+                            .onErrorResume(error -> Mono.just("翻译失败: " + error.getMessage()))
+                            .map(result -> Map.entry(state.provider.getName(), result));
+                })
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue, LinkedHashMap::new);
+    }
+
+    /**
+     * 由请求内容本身引起的错误（如文本格式或长度问题），拆分批次后其他文本仍可成功；
+     * 限流、配额、认证和服务端错误对整批都一样，拆分只会放大请求量
+     */
+    public static boolean isRequestSpecificError(Throwable error) {
+        if (error instanceof WebClientResponseException) {
+            int status = ((WebClientResponseException) error).getStatusCode().value();
+            return status == 400 || status == 413;
+        }
+        return false;
+    }
+
+    /**
+     * 路由和各提供方的统计，estimatedCost按成功翻译的字符数和每百万字符费用估算
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        Map<String, Object> perProvider = new LinkedHashMap<>();
+        for (ProviderState state : providers) {
+            Map<String, Object> providerStats = new HashMap<>();
+            long chars = state.chars.get();
+            double latency = state.getLatencyMillis();
+            providerStats.put("available", state.provider.isAvailable());
+            providerStats.put("persistable", state.provider.isPersistable());
+            providerStats.put("requests", state.requests.get());
+            providerStats.put("errors", state.errors.get());
+            providerStats.put("chars", chars);
+            providerStats.put("costPerMillionChars", state.provider.getCostPerMillionChars());
+            providerStats.put("estimatedCost", Math.round(chars * state.provider.getCostPerMillionChars() / 10_000.0) / 100.0);
+            providerStats.put("avgLatencyMs", latency >= 0 ? Math.round(latency * 10) / 10.0 : null);
+            providerStats.put("breaker", state.breaker.getStats());
+            perProvider.put(state.provider.getName(), providerStats);
+        }
+        stats.put("providers", perProvider);
+        stats.put("requests", requests.get());
+        stats.put("failovers", failovers.get());
+        stats.put("probes", probes.get());
+        stats.put("noProvider", noProvider.get());
+        return stats;
+    }
+
+    private static class ProviderState {
+        private final TranslationProvider provider;
+        private final CircuitBreaker breaker;
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong chars = new AtomicLong();
+        // 还没有样本时为-1
+        private double latencyMillis = -1;
+
+        ProviderState(TranslationProvider provider, CircuitBreaker breaker) {
+            this.provider = provider;
+            this.breaker = breaker;
+        }
+
+        synchronized double getLatencyMillis() {
+            return latencyMillis;
+        }
+
+        synchronized void recordLatency(double millis, double alpha) {
+            latencyMillis = latencyMillis < 0 ? millis : latencyMillis + alpha * (millis - latencyMillis);
+        }
+    }
+
+    /**
+     * 所有提供方都未启用或不可用（如没有配置密钥、配额已用完）
+     */
+    public static class NoTranslationProviderException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public NoTranslationProviderException() {
+            super("没有可用的翻译提供方");
+        }
+    }
+}
@@ -0,0 +1,411 @@
+package com.example.hacker_cnews.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.hacker_cnews.entity.NewsItem;
+import com.example.hacker_cnews.entity.TranslationTask;
+import com.example.hacker_cnews.repository.NewsItemRepository;
+import com.example.hacker_cnews.repository.TranslationTaskRepository;
+import com.example.hacker_cnews.util.SingleFlight;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 持久化的翻译队列
+ * 新闻以英文入库后在translation_task表中登记一行，工作线程池从表中领取到期的任务，
+ * 翻译标题和正文后写回titleZh/textZh并删除任务；失败的任务按指数退避重新排期。
+ * 入库不再等待翻译，翻译服务不可用时新闻照常入库，进程崩溃时未完成的任务在租约到期后被重新领取。
+ * translation.body.lazy开启时队列只翻译标题，正文在详情请求时由ensureBodyTranslated按需翻译
+ */
+@Service
+public class TranslationQueueService {
+    private static final Logger logger = LoggerFactory.getLogger(TranslationQueueService.class);
+
+    private final TranslationTaskRepository taskRepository;
+    private final NewsItemRepository newsRepository;
+    private final TranslationService translationService;
+    private final CacheService cacheService;
+
+    // 同时翻译的新闻数
+    @Value("${translation.queue.workers:4}")
+    private int workers;
+
+    // 每轮领取的任务数
+    @Value("${translation.queue.batch-size:50}")
+    private int batchSize;
+
+    // 领取后的租约时间，超过后任务可以被重新领取（处理中的进程崩溃或卡住）
+    @Value("${translation.queue.lease-ms:120000}")
+    private long leaseMillis;
+
+    @Value("${translation.queue.retry-base-ms:10000}")
+    private long retryBaseMillis;
+
+    @Value("${translation.queue.retry-max-ms:600000}")
+    private long retryMaxMillis;
+
+    // 正文按需翻译：队列只翻译标题，正文在第一次请求新闻详情时翻译
+    @Value("${translation.body.lazy:true}")
+    private boolean lazyBodies;
+
+    // 同一条新闻并发的首次详情请求共享一次正文翻译，键为新闻ID；完成后结果已写回，不需要保留
+    private final SingleFlight<Long, TranslationProvider.Result> bodyTranslations = new SingleFlight<>(Duration.ZERO, result -> false);
+
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    // 排空过程中有新任务入队，本轮结束后立即再排空一次
+    private volatile boolean drainRequested;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failedAttempts = new AtomicLong();
+    // 译文来自不可持久化的提供方（没有写回），任务保留并按退避重试
+    private final AtomicLong notPersisted = new AtomicLong();
+    private final AtomicLong claimConflicts = new AtomicLong();
+    private final AtomicLong totalQueueMillis = new AtomicLong();
+    private final AtomicLong bodiesOnDemand = new AtomicLong();
+    private final AtomicLong bodyCharsOnDemand = new AtomicLong();
+    private final AtomicLong failuresSwept = new AtomicLong();
+
+    public TranslationQueueService(
+            TranslationTaskRepository taskRepository,
+            NewsItemRepository newsRepository,
+            TranslationService translationService,
+            CacheService cacheService) {
+        this.taskRepository = taskRepository;
+        this.newsRepository = newsRepository;
+        this.translationService = translationService;
+        this.cacheService = cacheService;
+    }
+
+    /**
+     * 登记一条待翻译的新闻并唤醒工作线程；已有任务时保持原有的排期
+     */
+    public void enqueue(Long newsId) {
+        if (taskRepository.existsById(newsId)) {
+            return;
+        }
+        Instant now = Instant.now();
+        TranslationTask task = new TranslationTask();
+        task.setNewsId(newsId);
+        task.setCreatedAt(now);
+        task.setNextAttemptAt(now);
+        task.setAttempts(0);
+        taskRepository.save(task);
+        enqueued.incrementAndGet();
+        logger.debug("新闻 {} 已加入翻译队列", newsId);
+        signal();
+    }
+
+    /**
+     * 新闻被删除时移除对应的任务
+     */
+    public void forget(List<Long> newsIds) {
+        if (!newsIds.isEmpty()) {
+            taskRepository.deleteByNewsIds(newsIds);
+        }
+    }
+
+    private void signal() {
+        drainRequested = true;
+        if (!draining.get()) {
+            Schedulers.boundedElastic().schedule(this::drain);
+        }
+    }
+
+    /**
+     * 领取一批到期的任务交给工作线程池；同一时间只有一轮在运行
+     * 定时执行兜底，处理重试到期和租约到期的任务
+     */
+    @Scheduled(initialDelay = 10000, fixedDelayString = "${translation.queue.poll-interval-ms:5000}")
+    public void drain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        drainRequested = false;
+        List<TranslationTask> due;
+        try {
+            due = taskRepository.findByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(
+                    Instant.now(), PageRequest.of(0, batchSize));
+        } catch (Exception e) {
+            logger.error("读取翻译队列失败: {}", e.getMessage());
+            draining.set(false);
+            return;
+        }
+        if (due.isEmpty()) {
+            draining.set(false);
+            return;
+        }
+        logger.info("翻译队列: 领取 {} 个到期任务", due.size());
+        boolean full = due.size() >= batchSize;
+        Flux.fromIterable(due)
+                .filter(this::claim)
+                .flatMap(this::process, Math.max(1, workers))
+                .doFinally(signal -> {
+                    draining.set(false);
+                    if (full || drainRequested) {
+                        Schedulers.boundedElastic().schedule(this::drain);
+                    }
+                })
+                .subscribe();
+    }
+
+    /**
+     * 把任务的下次尝试时间推后一个租约，其他工作线程或节点已领取时返回false
+     */
+    private boolean claim(TranslationTask task) {
+        Instant now = Instant.now();
+        if (taskRepository.claim(task.getNewsId(), now, now.plusMillis(leaseMillis)) == 1) {
+            return true;
+        }
+        claimConflicts.incrementAndGet();
+        return false;
+    }
+
+    private Mono<Void> process(TranslationTask task) {
+        return Mono.fromCallable(() -> newsRepository.findById(task.getNewsId()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(found -> {
+                    if (found.isEmpty()) {
+                        // 新闻已被清理
+                        taskRepository.deleteById(task.getNewsId());
+                        return Mono.empty();
+                    }
+                    NewsItem item = found.get();
+                    // 标题和正文分别记录失败，成功的字段照常写回
+                    AtomicReference<String> error = new AtomicReference<>();
+                    Mono<Optional<TranslationProvider.Result>> title = recover(
+                            translationService.translateTitle(item.getTitleEn()), "标题", error);
+                    Mono<Optional<TranslationProvider.Result>> text = !lazyBodies && hasBody(item) ?
+                            recover(translateBody(item.getTextEn()), "正文", error) :
+                            Mono.just(Optional.of(TranslationProvider.Result.stored("")));
+                    return Mono.zip(title, text)
+                            .publishOn(Schedulers.boundedElastic())
+                            .doOnNext(tuple -> complete(task, tuple.getT1(), tuple.getT2(), error.get()))
+                            .then();
+                })
+                .onErrorResume(e -> {
+                    fail(task, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private static Mono<Optional<TranslationProvider.Result>> recover(Mono<TranslationProvider.Result> translation,
+            String field, AtomicReference<String> error) {
+        return translation.map(Optional::of)
+                .onErrorResume(e -> {
+                    error.set(field + "翻译失败: " + e.getMessage());
+                    return Mono.just(Optional.empty());
+                });
+    }
+
+    /**
+     * 正文先查翻译缓存，未命中时翻译并缓存成功的结果；标题的缓存由translateTitle按规范化后的主体处理
+     */
+    private Mono<TranslationProvider.Result> translateBody(String source) {
+        String cached = cacheService.getCachedTranslation(source);
+        if (cached != null) {
+            return Mono.just(TranslationProvider.Result.stored(cached));
+        }
+        return translationService.translateBody(source).doOnNext(result -> {
+            // 配额不足时跳过的正文（空字符串）不缓存
+            if (!result.getText().isEmpty()) {
+                translationService.cacheIfPersistable(source, result);
+            }
+        });
+    }
+    
+    /**
+     * 可以写入数据库的译文；空文本（没有正文、按需翻译或配额不足时跳过）和不可持久化的结果返回null，保持未翻译状态
+     */
+    private String storable(Optional<TranslationProvider.Result> result, Long newsId) {
+        if (result.isEmpty() || result.get().getText().isEmpty()) {
+            return null;
+        }
+        if (!result.get().isPersistable()) {
+            logger.debug("新闻 {} 的译文来自 {}，不写入数据库", newsId, result.get().getProvider());
+            return null;
+        }
+        return result.get().getText();
+    }
+
+    private static boolean notPersistable(Optional<TranslationProvider.Result> result) {
+        return result.isPresent() && !result.get().getText().isEmpty() && !result.get().isPersistable();
+    }
+
+    /**
+     * 写回成功的字段（失败的字段为空，不写回）；全部成功时删除任务，否则按退避重新排期
+     * 译文不可持久化时什么也没有写入，同样保留任务，不计为完成
+     */
+    private void complete(TranslationTask task, Optional<TranslationProvider.Result> titleZh,
+            Optional<TranslationProvider.Result> textZh, String error) {
+        newsRepository.updateTranslation(task.getNewsId(), storable(titleZh, task.getNewsId()),
+                storable(textZh, task.getNewsId()));
+        newsRepository.findById(task.getNewsId()).ifPresent(item -> {
+            try {
+                cacheService.cacheNewsItem(item.getId(), item);
+            } catch (Exception e) {
+                logger.error("更新缓存时出错 ID: {}, 错误: {}", item.getId(), e.getMessage());
+            }
+        });
+        if (error != null) {
+            fail(task, error);
+            return;
+        }
+        if (notPersistable(titleZh) || notPersistable(textZh)) {
+            notPersisted.incrementAndGet();
+            reschedule(task, "译文来自不可持久化的提供方，未写入");
+            return;
+        }
+        taskRepository.deleteById(task.getNewsId());
+        completed.incrementAndGet();
+        totalQueueMillis.addAndGet(Duration.between(task.getCreatedAt(), Instant.now()).toMillis());
+        logger.info("新闻 {} 翻译完成", task.getNewsId());
+    }
+
+    public boolean isLazyBodies() {
+        return lazyBodies;
+    }
+
+    /**
+     * 补齐新闻的中文正文：还没有中文正文时翻译，写回数据库和新闻缓存后返回；
+     * 翻译失败或配额不足时原样返回（只有英文正文），下一次请求再翻译
+     */
+    public Mono<NewsItem> ensureBodyTranslated(NewsItem item) {
+        String existing = item.getTextZh();
+        if (!hasBody(item) || (existing != null && !existing.isEmpty() && !TranslationService.isUnavailable(existing))) {
+            return Mono.just(item);
+        }
+        return bodyTranslations.execute(item.getId(), () -> translateBody(item.getTextEn())
+                        .publishOn(Schedulers.boundedElastic())
+                        .doOnNext(result -> {
+                            String textZh = result.getText();
+                            if (textZh.isEmpty()) {
+                                return;
+                            }
+                            bodiesOnDemand.incrementAndGet();
+                            bodyCharsOnDemand.addAndGet(item.getTextEn().length());
+                            if (!result.isPersistable()) {
+                                // 只在本次响应中展示，不写入数据库和新闻缓存
+                                return;
+                            }
+                            newsRepository.updateTranslation(item.getId(), null, textZh);
+                            item.setTextZh(textZh);
+                            try {
+                                cacheService.cacheNewsItem(item.getId(), item);
+                            } catch (Exception e) {
+                                logger.error("更新缓存时出错 ID: {}, 错误: {}", item.getId(), e.getMessage());
+                            }
+                            logger.info("新闻 {} 的正文已按需翻译", item.getId());
+                        }))
+                .map(result -> {
+                    if (!result.getText().isEmpty()) {
+                        item.setTextZh(result.getText());
+                    }
+                    return item;
+                })
+                .onErrorResume(e -> {
+                    logger.error("按需翻译正文失败 ID: {}, 错误: {}", item.getId(), e.getMessage());
+                    return Mono.just(item);
+                });
+    }
+
+    /**
+     * 找出标题或正文保存了翻译失败提示的新闻（旧版本把失败提示当作译文写入），清除提示恢复为未翻译状态并重新登记翻译任务，
+     * 之后由工作线程按正常的退避重试翻译；正文按需翻译时，被清除的正文在下一次详情请求时重新翻译
+     */
+    @Scheduled(initialDelay = 30000, fixedDelayString = "${translation.queue.failure-sweep-interval-ms:3600000}")
+    public int sweepFailedTranslations() {
+        List<Long> ids;
+        try {
+            ids = newsRepository.findIdsWithTranslationFailures(
+                    TranslationService.LEGACY_FAILURE_TEXTS, TranslationService.LEGACY_FAILURE_PREFIX + "%");
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            newsRepository.clearTranslationFailures(ids,
+                    TranslationService.LEGACY_FAILURE_TEXTS, TranslationService.LEGACY_FAILURE_PREFIX + "%");
+        } catch (Exception e) {
+            logger.error("清理保存的翻译失败提示时出错: {}", e.getMessage());
+            return 0;
+        }
+        logger.info("发现 {} 条保存了翻译失败提示的新闻，已清除并重新登记翻译", ids.size());
+        for (Long id : ids) {
+            try {
+                cacheService.evictNewsItem(id);
+            } catch (Exception e) {
+                logger.error("清除新闻缓存时出错 ID: {}, 错误: {}", id, e.getMessage());
+            }
+            enqueue(id);
+        }
+        failuresSwept.addAndGet(ids.size());
+        return ids.size();
+    }
+
+    private static boolean hasBody(NewsItem item) {
+        return item.getTextEn() != null && !item.getTextEn().trim().isEmpty();
+    }
+
+    private void fail(TranslationTask task, String error) {
+        failedAttempts.incrementAndGet();
+        reschedule(task, error);
+    }
+
+    /**
+     * 按退避推后任务的下次尝试时间
+     */
+    private void reschedule(TranslationTask task, String error) {
+        int attempts = (task.getAttempts() != null ? task.getAttempts() : 0) + 1;
+        long delay = Math.min(retryMaxMillis, retryBaseMillis << Math.min(20, attempts - 1));
+        task.setAttempts(attempts);
+        task.setNextAttemptAt(Instant.now().plusMillis(delay));
+        task.setLastError(error != null && error.length() > 500 ? error.substring(0, 500) : error);
+        try {
+            taskRepository.save(task);
+        } catch (Exception e) {
+            // 保存失败时任务在租约到期后仍会被重新领取
+            logger.error("更新翻译任务失败 ID: {}, 错误: {}", task.getNewsId(), e.getMessage());
+        }
+        logger.warn("新闻 {} 翻译未完成（第 {} 次），{} 秒后重试: {}", task.getNewsId(), attempts, delay / 1000, error);
+    }
+
+    /**
+     * 翻译队列的统计，avgQueueMs为从入队到翻译完成的平均时间
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long done = completed.get();
+        stats.put("pending", taskRepository.count());
+        stats.put("due", taskRepository.countByNextAttemptAtLessThanEqual(Instant.now()));
+        stats.put("workers", workers);
+        stats.put("draining", draining.get());
+        stats.put("enqueued", enqueued.get());
+        stats.put("completed", done);
+        stats.put("failedAttempts", failedAttempts.get());
+        stats.put("notPersisted", notPersisted.get());
+        stats.put("claimConflicts", claimConflicts.get());
+        stats.put("avgQueueMs", done > 0 ? totalQueueMillis.get() / done : 0);
+        stats.put("lazyBodies", lazyBodies);
+        stats.put("bodiesOnDemand", bodiesOnDemand.get());
+        stats.put("bodyCharsOnDemand", bodyCharsOnDemand.get());
+        stats.put("bodyRequestsCoalesced", bodyTranslations.getCoalesced());
+        stats.put("failuresSwept", failuresSwept.get());
+        return stats;
+    }
+}
@@ -1,95 +1,384 @@
 package com.example.hacker_cnews.service;
 
+import java.time.Duration;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.BodyInserters;
-import org.springframework.web.reactive.function.client.WebClient;
 
+import com.example.hacker_cnews.util.MicroBatcher;
+import com.example.hacker_cnews.util.SingleFlight;
+import com.example.hacker_cnews.util.TextDigest;
+import com.example.hacker_cnews.util.TextSegmenter;
+import com.example.hacker_cnews.util.TitleNormalizer;
+
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Service
 public class TranslationService {
     private static final Logger logger = LoggerFactory.getLogger(TranslationService.class);
-    private final WebClient webClient;
     
-    @Value("${deepl.translate.key}")
-    private String deeplApiKey;
+    // 旧版本在翻译失败时作为结果返回、并可能已写入缓存和数据库的提示文本；现在翻译失败以TranslationFailedException表示
+    public static final List<String> LEGACY_FAILURE_TEXTS = List.of("翻译服务暂时不可用，请稍后再试", "无法获取翻译结果");
+    public static final String LEGACY_FAILURE_PREFIX = "翻译请求构建失败";
+    
+    private final CacheService cacheService;
+    
+    // 规范化后相同的文本的并发翻译请求共享一次上游调用，键为规范化文本的摘要
+    private final SingleFlight<String, TranslationProvider.Result> translationRequests;
+    
+    // 把同一时间窗口内的翻译请求合并为一次请求，由路由选择提供方（DeepL单次最多接受50段文本）
+    private final MicroBatcher<String, TranslationProvider.Result> translationBatcher;
+    
+    private final TranslationProviderRouter providerRouter;
+    
+    // DeepL的字符配额决定是否只翻译标题
+    private final DeepLTranslationProvider deepLProvider;
+    
+    private final AtomicLong bodiesSkipped = new AtomicLong();
     
-    @Value("${deepl.translate.url}")
-    private String deeplApiUrl;
+    private final Map<TranslationFailedException.Reason, AtomicLong> failuresByReason =
+            new EnumMap<>(TranslationFailedException.Reason.class);
     
-    public TranslationService(WebClient.Builder webClientBuilder) {
-        // 不设置baseUrl，让每个请求使用完整URL
-        this.webClient = webClientBuilder.build();
+    // 长文本按段落/句子切分后逐段翻译，每段单独缓存，正文修改后只重新翻译变化的段落
+    @Value("${deepl.segment.max-chars:1500}")
+    private int segmentMaxChars;
+    
+    private final AtomicLong segmentedTexts = new AtomicLong();
+    private final AtomicLong segmentCacheHits = new AtomicLong();
+    private final AtomicLong segmentsTranslated = new AtomicLong();
+    
+    // 标题按规范化后的主体缓存和翻译，前缀、末尾标记、引号和空白的差异不再导致缓存未命中
+    private final AtomicLong titleLookups = new AtomicLong();
+    private final AtomicLong titleCoreHits = new AtomicLong();
+    private final AtomicLong titleLegacyHits = new AtomicLong();
+    
+    // 来自不可持久化的提供方（本地桩）、因此没有写入缓存的结果
+    private final AtomicLong notPersisted = new AtomicLong();
+    
+    public TranslationService(
+            CacheService cacheService,
+            TranslationProviderRouter providerRouter,
+            DeepLTranslationProvider deepLProvider,
+            @Value("${deepl.batch.max-texts:50}") int batchMaxTexts,
+            @Value("${deepl.batch.max-chars:30000}") long batchMaxChars,
+            @Value("${deepl.batch.window-ms:50}") long batchWindowMillis,
+            @Value("${deepl.dedup-ttl-ms:5000}") long dedupTtlMillis) {
+        this.cacheService = cacheService;
+        this.providerRouter = providerRouter;
+        this.deepLProvider = deepLProvider;
+        this.translationBatcher = new MicroBatcher<>("deepl",
+                Math.min(50, batchMaxTexts), batchMaxChars, Duration.ofMillis(batchWindowMillis),
+                String::length, providerRouter::translate, TranslationProviderRouter::isRequestSpecificError);
+        // 失败以异常结束，不会被复用，下一次调用重新请求
+        this.translationRequests = new SingleFlight<>(
+                Duration.ofMillis(dedupTtlMillis),
+                result -> true);
+        for (TranslationFailedException.Reason reason : TranslationFailedException.Reason.values()) {
+            failuresByReason.put(reason, new AtomicLong());
+        }
     }
     
     public Mono<String> translateEnToZh(String text) {
+        return translate(text).map(TranslationProvider.Result::getText);
+    }
+    
+    private Mono<TranslationProvider.Result> translate(String text) {
         if (text == null || text.trim().isEmpty()) {
             logger.info("翻译请求：文本为空");
-            return Mono.just("");
+            return Mono.just(TranslationProvider.Result.stored(""));
         }
         
         logger.info("翻译请求：{}", text);
-        return translateWithDeepL(text);
+        if (text.length() > segmentMaxChars) {
+            return translateSegmented(text);
+        }
+        return translationRequests.execute(TextDigest.of(text), () -> translateWithProviders(text));
     }
     
     /**
-     * 使用DeepL API进行翻译
+     * 翻译标题：只翻译规范化后的主体，固定的前缀译法和末尾标记在译文外拼接
+     * 翻译失败时以TranslationFailedException结束，本方法和以下翻译方法都不会把失败作为结果返回
      */
-    private Mono<String> translateWithDeepL(String text) {
-        logger.debug("使用DeepL API进行翻译");
-        
-        // 添加截断机制，DeepL API也有字符限制
-        final String truncatedText;
-        if (text.length() > 5000) {  // DeepL免费API单次请求字符限制更高
-            truncatedText = text.substring(0, 5000);
-            logger.warn("文本过长，已截断至5000字符");
+    public Mono<String> translateTitleEnToZh(String title) {
+        return translateTitle(title).map(TranslationProvider.Result::getText);
+    }
+    
+    /**
+     * 同translateTitleEnToZh，结果带有来源；不可持久化的结果不应写入数据库
+     */
+    public Mono<TranslationProvider.Result> translateTitle(String title) {
+        if (title == null || title.trim().isEmpty()) {
+            return Mono.just(TranslationProvider.Result.stored(""));
+        }
+        TitleNormalizer.Title parsed = TitleNormalizer.parse(title);
+        String cached = lookupTitle(parsed, title);
+        if (cached != null) {
+            return Mono.just(TranslationProvider.Result.stored(cached));
+        }
+        return translate(parsed.getCore())
+                .map(result -> {
+                    cacheIfPersistable(parsed.getCore(), result);
+                    return result.withText(parsed.render(result.getText()));
+                });
+    }
+    
+    /**
+     * 只缓存真正的译文；本地桩等不可持久化的提供方的结果直接返回给调用方
+     */
+    public void cacheIfPersistable(String source, TranslationProvider.Result result) {
+        if (result.isPersistable()) {
+            cacheService.cacheTranslation(source, result.getText());
         } else {
-            truncatedText = text;
+            notPersisted.incrementAndGet();
+        }
+    }
+    
+    /**
+     * 只查缓存，命中时返回完整的中文标题，否则返回null
+     */
+    public String getCachedTitleTranslation(String title) {
+        if (title == null || title.trim().isEmpty()) {
+            return null;
+        }
+        return lookupTitle(TitleNormalizer.parse(title), title);
+    }
+    
+    private String lookupTitle(TitleNormalizer.Title parsed, String title) {
+        titleLookups.incrementAndGet();
+        if (parsed.getCore().isEmpty()) {
+            titleCoreHits.incrementAndGet();
+            return parsed.render("");
+        }
+        String cached = cacheService.getCachedTranslation(parsed.getCore());
+        if (cached != null) {
+            titleCoreHits.incrementAndGet();
+            return parsed.render(cached);
+        }
+        // 规范化之前按完整标题缓存的译文
+        if (!parsed.getCore().equals(TextDigest.normalize(title))) {
+            String legacy = cacheService.getCachedTranslation(title);
+            if (legacy != null) {
+                titleLegacyHits.incrementAndGet();
+                return legacy;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * 翻译正文；DeepL剩余配额不足时跳过正文（返回空字符串），把配额留给标题
+     */
+    public Mono<String> translateBodyEnToZh(String text) {
+        return translateBody(text).map(TranslationProvider.Result::getText);
+    }
+    
+    /**
+     * 同translateBodyEnToZh，结果带有来源；不可持久化的结果不应写入缓存和数据库
+     */
+    public Mono<TranslationProvider.Result> translateBody(String text) {
+        if (text != null && !text.trim().isEmpty() && isTitlesOnlyMode()) {
+            bodiesSkipped.incrementAndGet();
+            logger.warn("DeepL剩余配额不足 {}%，跳过正文翻译", Math.round(deepLProvider.getTitlesOnlyRatio() * 100));
+            return Mono.just(TranslationProvider.Result.stored(""));
+        }
+        if (text == null || text.trim().isEmpty()) {
+            return Mono.just(TranslationProvider.Result.stored(""));
+        }
+        return translateSegmented(text);
+    }
+    
+    /**
+     * 切分后逐段翻译再按原顺序拼接
+     * 每段先查翻译缓存，未命中的段经请求合并和批量翻译发给翻译提供方，成功后单独缓存；
+     * 任一段失败时整体失败（已成功的段已缓存，重试时不再付费）；任一段不可持久化时整体不可持久化
+     */
+    private Mono<TranslationProvider.Result> translateSegmented(String text) {
+        List<TextSegmenter.Segment> segments = TextSegmenter.split(text, segmentMaxChars);
+        segmentedTexts.incrementAndGet();
+        return Flux.fromIterable(segments)
+                .flatMapSequential(this::translateSegment)
+                .collectList()
+                .map(results -> {
+                    String joined = TextSegmenter.join(segments,
+                            results.stream().map(TranslationProvider.Result::getText).toList());
+                    return results.stream()
+                            .filter(result -> !result.isPersistable())
+                            .findFirst()
+                            .orElse(TranslationProvider.Result.stored(joined))
+                            .withText(joined);
+                });
+    }
+    
+    private Mono<TranslationProvider.Result> translateSegment(TextSegmenter.Segment segment) {
+        if (!segment.isTranslatable()) {
+            return Mono.just(TranslationProvider.Result.stored(segment.getText()));
+        }
+        String source = segment.getText();
+        String cached = cacheService.getCachedTranslation(source);
+        if (cached != null) {
+            segmentCacheHits.incrementAndGet();
+            return Mono.just(TranslationProvider.Result.stored(cached));
+        }
+        segmentsTranslated.incrementAndGet();
+        return translationRequests.execute(TextDigest.of(source), () -> translateWithProviders(source))
+                .doOnNext(result -> cacheIfPersistable(source, result));
+    }
+    
+    /**
+     * 经批处理器和提供方路由进行翻译
+     */
+    private Mono<TranslationProvider.Result> translateWithProviders(String text) {
+        // 超过segment.max-chars的文本已在上层切分，这里不再截断
+        return translationBatcher.submit(text)
+                .doOnNext(result -> logger.info("翻译成功[{}]: {} -> {}", result.getProvider(), text, result.getText()))
+                .onErrorMap(error -> {
+                    TranslationFailedException failure = TranslationFailedException.from(error);
+                    failuresByReason.get(failure.getReason()).incrementAndGet();
+                    logger.error("翻译过程中发生错误: {}", failure.getMessage());
+                    return failure;
+                });
+    }
+    
+    /**
+     * 剩余配额低于阈值时只翻译标题
+     */
+    public boolean isTitlesOnlyMode() {
+        return deepLProvider.isTitlesOnlyMode();
+    }
+    
+    /**
+     * DeepL配额和速率限制的状态，bodiesSkipped为因配额不足跳过的正文数
+     */
+    public Map<String, Object> getQuotaStats() {
+        Map<String, Object> stats = deepLProvider.getQuotaStats();
+        stats.put("bodiesSkipped", bodiesSkipped.get());
+        return stats;
+    }
+    
+    /**
+     * 各翻译提供方的延迟、错误、费用和路由统计，notPersisted为因来源不可持久化而没有缓存的结果数
+     */
+    public Map<String, Object> getProviderStats() {
+        Map<String, Object> stats = providerRouter.getStats();
+        stats.put("notPersisted", notPersisted.get());
+        return stats;
+    }
+    
+    /**
+     * 分别用每个翻译提供方翻译同一段文本，用于对比翻译质量
+     */
+    public Mono<Map<String, String>> compareProviders(String text) {
+        return providerRouter.translateWithEach(text);
+    }
+    
+    /**
+     * 是否为旧版本作为结果保存的翻译失败提示（而不是真正的翻译结果），这类文本不应被缓存或展示
+     */
+    public static boolean isUnavailable(String result) {
+        return result != null && (LEGACY_FAILURE_TEXTS.contains(result) || result.startsWith(LEGACY_FAILURE_PREFIX));
+    }
+    
+    /**
+     * 按原因统计的翻译失败次数
+     */
+    public Map<String, Object> getFailureStats() {
+        Map<String, Object> stats = new HashMap<>();
+        failuresByReason.forEach((reason, count) -> stats.put(reason.name(), count.get()));
+        return stats;
+    }
+    
+    /**
+     * 翻译请求合并的统计，coalesced为共享了其他调用结果、没有产生上游请求的次数
+     */
+    public Map<String, Object> getDedupStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("requests", translationRequests.getRequests());
+        stats.put("upstreamCalls", translationRequests.getUpstreamCalls());
+        stats.put("coalesced", translationRequests.getCoalesced());
+        stats.put("inFlight", translationRequests.getInFlightSize());
+        return stats;
+    }
+    
+    /**
+     * 标题缓存查询的统计，coreHits为按规范化后的主体命中，legacyHits为按规范化之前的完整标题命中
+     */
+    public Map<String, Object> getTitleStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long lookups = titleLookups.get();
+        long hits = titleCoreHits.get() + titleLegacyHits.get();
+        stats.put("lookups", lookups);
+        stats.put("coreHits", titleCoreHits.get());
+        stats.put("legacyHits", titleLegacyHits.get());
+        stats.put("misses", lookups - hits);
+        stats.put("hitRatio", lookups > 0 ? Math.round(hits * 10000.0 / lookups) / 10000.0 : 0);
+        return stats;
+    }
+    
+    /**
+     * 长文本分段翻译的统计，segmentCacheHits为直接使用缓存、没有重新翻译的段数
+     */
+    public Map<String, Object> getSegmentStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("maxChars", segmentMaxChars);
+        stats.put("segmentedTexts", segmentedTexts.get());
+        stats.put("segmentCacheHits", segmentCacheHits.get());
+        stats.put("segmentsTranslated", segmentsTranslated.get());
+        return stats;
+    }
+    
+    /**
+     * 批量翻译请求的统计
+     */
+    public Map<String, Object> getBatchStats() {
+        return translationBatcher.getStats();
+    }
+    
+    /**
+     * 翻译失败；失败不是翻译结果，调用方不应缓存或保存任何内容
+     */
+    public static class TranslationFailedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        
+        public enum Reason {
+            QUOTA_EXCEEDED,     // 字符配额不足
+            NO_PROVIDER,        // 没有可用的翻译提供方
+            MISSING_RESULT,     // 提供方的响应中缺少这段文本的结果
+            PROVIDER_ERROR      // 网络、限流、服务端等其他错误
         }
         
-        try {
-            // 构建请求体
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("text", List.of(truncatedText));
-            requestBody.put("source_lang", "EN");
-            requestBody.put("target_lang", "ZH");
-            
-            // 发送POST请求到DeepL API
-            return webClient.post()
-                    .uri(deeplApiUrl)
-                    .header(HttpHeaders.AUTHORIZATION, "DeepL-Auth-Key " + deeplApiKey)
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body(BodyInserters.fromValue(requestBody))
-                    .retrieve()
-                    .bodyToMono(Map.class)
-                    .doOnNext(response -> logger.debug("DeepL API响应: {}", response))
-                    .map(response -> {
-                        // 解析翻译结果
-                        if (response.containsKey("translations")) {
-                            List<Map<String, Object>> translations = (List<Map<String, Object>>) response.get("translations");
-                            if (translations != null && !translations.isEmpty()) {
-                                String result = (String) translations.get(0).get("text");
-                                logger.info("DeepL翻译成功: {} -> {}", text, result);
-                                return result;
-                            }
-                        }
-                        logger.warn("DeepL翻译响应中没有发现结果");
-                        return "无法获取翻译结果";
-                    })
-                    .doOnError(error -> logger.error("DeepL翻译过程中发生错误: {}", error.getMessage(), error))
-                    .onErrorReturn("翻译服务暂时不可用，请稍后再试");
-        } catch (Exception e) {
-            logger.error("创建DeepL翻译请求时发生错误: {}", e.getMessage(), e);
-            return Mono.just("翻译请求构建失败: " + e.getMessage());
-        }
-    }
-} 
\ No newline at end of file
+        private final Reason reason;
+        
+        public TranslationFailedException(Reason reason, Throwable cause) {
+            super("翻译失败[" + reason + "]: " + cause.getMessage(), cause);
+            this.reason = reason;
+        }
+        
+        public Reason getReason() {
+            return reason;
+        }
+        
+        static TranslationFailedException from(Throwable error) {
+            if (error instanceof TranslationFailedException) {
+                return (TranslationFailedException) error;
+            }
+            if (error instanceof DeepLTranslationProvider.DeepLQuotaExceededException) {
+                return new TranslationFailedException(Reason.QUOTA_EXCEEDED, error);
+            }
+            if (error instanceof TranslationProviderRouter.NoTranslationProviderException) {
+                return new TranslationFailedException(Reason.NO_PROVIDER, error);
+            }
+            if (error instanceof MicroBatcher.MissingResultException) {
+                return new TranslationFailedException(Reason.MISSING_RESULT, error);
+            }
+            return new TranslationFailedException(Reason.PROVIDER_ERROR, error);
+        }
+    }
+}
@@ -0,0 +1,443 @@
+package com.example.hacker_cnews.simulator;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerResponse;
+
+/**
+ * 本地Hacker News API模拟器
+ * 提供/v0/topstories.json（包括text/event-stream推送）、/v0/item/{id}.json、/v0/updates.json和/v0/maxitem.json，
+ * 条目内容由ID和种子确定性生成，响应延迟按配置的分布采样，并可注入5xx错误和周期性的429突发
+ *
+ * 将hacker-news.api.base-url指向 http://localhost:{port}/v0 即可离线压测抓取流程
+ */
+@Component
+public class HackerNewsSimulator {
+    private static final Logger logger = LoggerFactory.getLogger(HackerNewsSimulator.class);
+
+    // 每10个ID中ID末位为0的是新闻，其余为评论
+    private static final int ITEMS_PER_STORY = 10;
+    // 模拟站点的新条目产生速率（条/秒）
+    private static final double ITEMS_PER_SECOND = 2.0;
+    private static final int TOP_STORIES_SIZE = 500;
+    private static final int UPDATES_SIZE = 100;
+    // 每条新闻下固定形状的评论树：评论偏移 -> 子评论偏移
+    private static final int[][] COMMENT_KIDS = {
+        {1, 2, 3},  // 新闻本身
+        {4, 5},     // 1
+        {6},        // 2
+        {},         // 3
+        {7},        // 4
+        {},         // 5
+        {8, 9},     // 6
+        {}, {}, {}
+    };
+    private static final int[] COMMENT_PARENT = {0, 0, 0, 0, 1, 1, 2, 4, 6, 6};
+
+    @Value("${hacker-news.simulator.enabled:false}")
+    private boolean enabled;
+
+    @Value("${hacker-news.simulator.port:18080}")
+    private int port;
+
+    @Value("${hacker-news.simulator.seed:42}")
+    private long seed;
+
+    @Value("${hacker-news.simulator.max-item:40000000}")
+    private long initialMaxItem;
+
+    @Value("${hacker-news.simulator.latency.distribution:lognormal}")
+    private volatile String latencyDistribution;
+
+    @Value("${hacker-news.simulator.latency.median-ms:50}")
+    private volatile long latencyMedianMillis;
+
+    @Value("${hacker-news.simulator.latency.p99-ms:500}")
+    private volatile long latencyP99Millis;
+
+    @Value("${hacker-news.simulator.error-rate:0.0}")
+    private volatile double errorRate;
+
+    @Value("${hacker-news.simulator.throttle.burst-interval-ms:0}")
+    private volatile long burstIntervalMillis;
+
+    @Value("${hacker-news.simulator.throttle.burst-duration-ms:5000}")
+    private volatile long burstDurationMillis;
+
+    @Value("${hacker-news.simulator.stream-interval-ms:5000}")
+    private long streamIntervalMillis;
+
+    private final ObjectMapper objectMapper;
+    private volatile DisposableServer server;
+    private volatile long startedAtMillis;
+
+    // 请求序号，与种子一起决定每个请求的延迟和错误，保证压测可重复
+    private final AtomicLong requestSequence = new AtomicLong();
+    private final Map<String, AtomicLong> requestsByPath = new ConcurrentHashMap<>();
+    private final AtomicLong errorResponses = new AtomicLong();
+    private final AtomicLong throttledResponses = new AtomicLong();
+
+    public HackerNewsSimulator(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void startIfEnabled() {
+        if (enabled) {
+            start();
+        }
+    }
+
+    /**
+     * 启动模拟器（在应用就绪之前完成，启动时的连接预热可以直接连上）
+     */
+    public synchronized void start() {
+        if (isRunning()) {
+            return;
+        }
+        startedAtMillis = System.currentTimeMillis();
+        server = HttpServer.create()
+                .port(port)
+                .route(routes -> routes
+                    .get("/v0/topstories.json", (request, response) -> {
+                        String accept = request.requestHeaders().get(HttpHeaderNames.ACCEPT);
+                        if (accept != null && accept.contains("text/event-stream")) {
+                            return streamTopStories(response);
+                        }
+                        return respond(response, "topstories", this::topStories);
+                    })
+                    .get("/v0/maxitem.json", (request, response) ->
+                        respond(response, "maxitem", this::currentMaxItem))
+                    .get("/v0/updates.json", (request, response) ->
+                        respond(response, "updates", this::updates))
+                    .get("/v0/item/{id}", (request, response) -> {
+                        String param = request.param("id");
+                        Long id = parseItemId(param);
+                        if (id == null) {
+                            return response.status(HttpResponseStatus.NOT_FOUND).send();
+                        }
+                        return respond(response, "item", () -> item(id));
+                    })
+                    .head("/v0/maxitem.json", (request, response) -> response.send()))
+                .bindNow();
+        logger.info("Hacker News模拟器已启动: http://localhost:{}/v0 (maxitem={}, 延迟分布={}, 中位数={}ms, p99={}ms, 错误率={}, 429突发间隔={}ms)",
+            server.port(), initialMaxItem, latencyDistribution, latencyMedianMillis, latencyP99Millis,
+            errorRate, burstIntervalMillis);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (server != null) {
+            server.disposeNow();
+            server = null;
+            logger.info("Hacker News模拟器已停止");
+        }
+    }
+
+    public boolean isRunning() {
+        return server != null && !server.isDisposed();
+    }
+
+    /**
+     * 运行时调整故障注入参数，为null的参数保持不变
+     */
+    public void configureFaults(String distribution, Long medianMillis, Long p99Millis, Double errorRate,
+            Long burstIntervalMillis, Long burstDurationMillis) {
+        if (distribution != null) {
+            this.latencyDistribution = distribution;
+        }
+        if (medianMillis != null) {
+            this.latencyMedianMillis = medianMillis;
+        }
+        if (p99Millis != null) {
+            this.latencyP99Millis = p99Millis;
+        }
+        if (errorRate != null) {
+            this.errorRate = errorRate;
+        }
+        if (burstIntervalMillis != null) {
+            this.burstIntervalMillis = burstIntervalMillis;
+        }
+        if (burstDurationMillis != null) {
+            this.burstDurationMillis = burstDurationMillis;
+        }
+        logger.info("模拟器故障参数已调整: {}", getStatus());
+    }
+
+    /**
+     * 模拟器状态和请求统计
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", isRunning());
+        status.put("baseUrl", isRunning() ? "http://localhost:" + server.port() + "/v0" : null);
+        status.put("maxItem", isRunning() ? currentMaxItem() : initialMaxItem);
+        status.put("latencyDistribution", latencyDistribution);
+        status.put("latencyMedianMs", latencyMedianMillis);
+        status.put("latencyP99Ms", latencyP99Millis);
+        status.put("errorRate", errorRate);
+        status.put("burstIntervalMs", burstIntervalMillis);
+        status.put("burstDurationMs", burstDurationMillis);
+
+        Map<String, Long> requests = new HashMap<>();
+        requestsByPath.forEach((path, count) -> requests.put(path, count.get()));
+        status.put("requests", requests);
+        status.put("totalRequests", requestSequence.get());
+        status.put("errorResponses", errorResponses.get());
+        status.put("throttledResponses", throttledResponses.get());
+        return status;
+    }
+
+    /**
+     * 按延迟分布等待后返回响应；处于429突发窗口或命中错误率时返回相应的错误状态
+     */
+    private Mono<Void> respond(HttpServerResponse response, String path, Supplier<Object> body) {
+        long sequence = requestSequence.incrementAndGet();
+        requestsByPath.computeIfAbsent(path, key -> new AtomicLong()).incrementAndGet();
+        SplittableRandom random = new SplittableRandom(seed * 1_000_003L + sequence);
+        Duration latency = sampleLatency(random);
+
+        return Mono.delay(latency).then(Mono.defer(() -> {
+            if (inThrottleBurst()) {
+                throttledResponses.incrementAndGet();
+                return response.status(HttpResponseStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaderNames.RETRY_AFTER, "1")
+                        .send();
+            }
+            if (errorRate > 0 && random.nextDouble() < errorRate) {
+                errorResponses.incrementAndGet();
+                return response.status(HttpResponseStatus.INTERNAL_SERVER_ERROR).send();
+            }
+            byte[] json;
+            try {
+                json = objectMapper.writeValueAsBytes(body.get());
+            } catch (JsonProcessingException e) {
+                return Mono.error(e);
+            }
+            return response.header(HttpHeaderNames.CONTENT_TYPE, "application/json; charset=utf-8")
+                    .sendByteArray(Mono.just(json))
+                    .then();
+        }));
+    }
+
+    /**
+     * 模拟Firebase的流式订阅：连接后先发送完整列表（put），之后每隔streamIntervalMillis
+     * 发送变化的位置（patch），没有变化时发送keep-alive
+     */
+    private Mono<Void> streamTopStories(HttpServerResponse response) {
+        requestsByPath.computeIfAbsent("topstories-stream", key -> new AtomicLong()).incrementAndGet();
+        if (inThrottleBurst()) {
+            throttledResponses.incrementAndGet();
+            return response.status(HttpResponseStatus.TOO_MANY_REQUESTS).send();
+        }
+
+        AtomicReference<List<Long>> previous = new AtomicReference<>();
+        Flux<String> events = Flux.interval(Duration.ZERO, Duration.ofMillis(Math.max(100, streamIntervalMillis)))
+                .map(tick -> {
+                    List<Long> current = topStories();
+                    List<Long> last = previous.getAndSet(current);
+                    Map<String, Object> event = new LinkedHashMap<>();
+                    event.put("path", "/");
+                    if (last == null) {
+                        event.put("data", current);
+                        return sseEvent("put", event);
+                    }
+                    Map<String, Long> changed = new LinkedHashMap<>();
+                    for (int i = 0; i < current.size(); i++) {
+                        if (i >= last.size() || !current.get(i).equals(last.get(i))) {
+                            changed.put(String.valueOf(i), current.get(i));
+                        }
+                    }
+                    if (changed.isEmpty()) {
+                        return "event: keep-alive\ndata: null\n\n";
+                    }
+                    event.put("data", changed);
+                    return sseEvent("patch", event);
+                });
+        return response.header(HttpHeaderNames.CONTENT_TYPE, "text/event-stream")
+                .sendString(events)
+                .then();
+    }
+
+    private String sseEvent(String type, Object data) {
+        try {
+            return "event: " + type + "\ndata: " + objectMapper.writeValueAsString(data) + "\n\n";
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 延迟采样：constant为中位数；uniform在[0, 2*中位数]均匀分布；
+     * lognormal由中位数和p99确定参数（p99 = 中位数 * e^(2.326σ)）
+     */
+    private Duration sampleLatency(SplittableRandom random) {
+        long median = Math.max(0, latencyMedianMillis);
+        double millis;
+        switch (latencyDistribution) {
+            case "constant":
+                millis = median;
+                break;
+            case "uniform":
+                millis = random.nextDouble() * 2 * median;
+                break;
+            default:
+                double sigma = Math.log(Math.max(latencyP99Millis, median + 1) / (double) Math.max(1, median)) / 2.326;
+                millis = median * Math.exp(sigma * gaussian(random));
+        }
+        return Duration.ofMillis(Math.max(0, Math.round(millis)));
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        // Box-Muller
+        double u1 = 1.0 - random.nextDouble();
+        double u2 = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+    }
+
+    /**
+     * 每burstIntervalMillis毫秒开始一次持续burstDurationMillis毫秒的429突发
+     */
+    private boolean inThrottleBurst() {
+        long interval = burstIntervalMillis;
+        if (interval <= 0) {
+            return false;
+        }
+        long elapsed = System.currentTimeMillis() - startedAtMillis;
+        return elapsed % interval >= interval - Math.min(interval, burstDurationMillis);
+    }
+
+    private long currentMaxItem() {
+        long elapsedMillis = System.currentTimeMillis() - startedAtMillis;
+        return initialMaxItem + (long) (elapsedMillis / 1000.0 * ITEMS_PER_SECOND);
+    }
+
+    /**
+     * 条目发布时间：按固定速率从模拟器启动时刻往回推算
+     */
+    private long itemTime(long id) {
+        return startedAtMillis / 1000 + (long) ((id - initialMaxItem) / ITEMS_PER_SECOND);
+    }
+
+    /**
+     * 分数随发布时间线性增长，增速由ID确定
+     */
+    private int score(long id, long nowSeconds) {
+        SplittableRandom random = new SplittableRandom(seed ^ id);
+        long ageMinutes = Math.max(0, (nowSeconds - itemTime(id)) / 60);
+        return 1 + random.nextInt(20) + (int) (ageMinutes * random.nextDouble() * 2);
+    }
+
+    /**
+     * 最近的新闻按类似HN的热度公式排序：(分数-1) / (小时数+2)^1.8
+     */
+    private List<Long> topStories() {
+        long nowSeconds = System.currentTimeMillis() / 1000;
+        long newestStory = currentMaxItem() / ITEMS_PER_STORY * ITEMS_PER_STORY;
+        List<Long> candidates = new ArrayList<>(TOP_STORIES_SIZE * 2);
+        for (int i = 0; i < TOP_STORIES_SIZE * 2; i++) {
+            candidates.add(newestStory - (long) i * ITEMS_PER_STORY);
+        }
+        Map<Long, Double> hotness = new HashMap<>();
+        for (Long id : candidates) {
+            double ageHours = Math.max(0, nowSeconds - itemTime(id)) / 3600.0;
+            hotness.put(id, (score(id, nowSeconds) - 1) / Math.pow(ageHours + 2, 1.8));
+        }
+        candidates.sort(Comparator.comparing(hotness::get).reversed());
+        return candidates.subList(0, TOP_STORIES_SIZE);
+    }
+
+    /**
+     * 最近变更的条目：热门新闻的一部分（分数变化）及其评论，每分钟变化一次
+     */
+    private Map<String, Object> updates() {
+        long minute = System.currentTimeMillis() / 60_000;
+        SplittableRandom random = new SplittableRandom(seed ^ minute);
+        List<Long> top = topStories();
+        List<Long> items = new ArrayList<>(UPDATES_SIZE);
+        for (int i = 0; i < UPDATES_SIZE; i++) {
+            long story = top.get(random.nextInt(Math.min(top.size(), 100)));
+            items.add(i % 2 == 0 ? story : story + 1 + random.nextInt(ITEMS_PER_STORY - 1));
+        }
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("items", items.stream().distinct().toList());
+        updates.put("profiles", Arrays.asList("sim_user_" + (minute % 7), "sim_user_" + (minute % 11)));
+        return updates;
+    }
+
+    /**
+     * 确定性生成条目；超过当前maxitem的ID返回null（与HN一致）
+     */
+    private Object item(long id) {
+        if (id <= 0 || id > currentMaxItem()) {
+            return null;
+        }
+        int offset = (int) (id % ITEMS_PER_STORY);
+        long storyId = id - offset;
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("id", id);
+        item.put("by", "sim_user_" + (id % 97));
+        item.put("time", itemTime(id));
+
+        List<Long> kids = new ArrayList<>();
+        for (int kidOffset : COMMENT_KIDS[offset]) {
+            kids.add(storyId + kidOffset);
+        }
+        if (!kids.isEmpty()) {
+            item.put("kids", kids);
+        }
+
+        if (offset == 0) {
+            item.put("type", "story");
+            item.put("title", "Synthetic story " + id + ": benchmark ingestion throughput #" + (id % 1000));
+            item.put("url", "https://example.com/story/" + id);
+            item.put("score", score(id, System.currentTimeMillis() / 1000));
+            item.put("descendants", ITEMS_PER_STORY - 1);
+        } else {
+            item.put("type", "comment");
+            item.put("parent", COMMENT_PARENT[offset] == 0 ? storyId : storyId + COMMENT_PARENT[offset]);
+            item.put("text", "Synthetic comment " + id + " on story " + storyId);
+        }
+        return item;
+    }
+
+    private static Long parseItemId(String param) {
+        if (param == null) {
+            return null;
+        }
+        String value = param.endsWith(".json") ? param.substring(0, param.length() - 5) : param;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
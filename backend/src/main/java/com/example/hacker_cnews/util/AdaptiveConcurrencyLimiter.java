@@ -0,0 +1,192 @@
+package com.example.hacker_cnews.util;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * AIMD自适应并发限制器
+ * 请求延迟正常时并发上限线性增长（每完成limit个请求+1），
+ * 遇到超时、429等过载信号时按比例收缩，收缩之间保留冷却时间，避免一批超时把上限压到最低
+ * 超出上限的请求排队等待，不会失败
+ */
+public class AdaptiveConcurrencyLimiter {
+    
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final Predicate<Throwable> isOverload;
+    
+    private double limit;
+    private int inFlight;
+    private long lastBackoffNanos;
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    
+    private final AtomicLong successes = new AtomicLong();
+    private final AtomicLong slowResponses = new AtomicLong();
+    private final AtomicLong overloads = new AtomicLong();
+    private final AtomicLong backoffs = new AtomicLong();
+    
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+            Duration latencyThreshold, double backoffRatio, Predicate<Throwable> isOverload) {
+        this.name = name;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.isOverload = isOverload;
+    }
+    
+    /**
+     * 在获得并发许可后执行任务，任务结束（成功、失败或取消）时归还许可并根据结果调整上限
+     */
+    public <T> Mono<T> run(Supplier<Mono<T>> task) {
+        return acquire().flatMap(permit -> Mono.defer(task)
+                .doOnSuccess(value -> permit.release(Outcome.SUCCESS))
+                .doOnError(e -> permit.release(isOverload.test(e) ? Outcome.OVERLOAD : Outcome.IGNORE))
+                .doOnCancel(() -> permit.release(Outcome.IGNORE)));
+    }
+    
+    private Mono<Permit> acquire() {
+        return Mono.<Permit>create(sink -> {
+            Waiter waiter = new Waiter(sink);
+            sink.onCancel(() -> {
+                if (waiter.claim()) {
+                    synchronized (this) {
+                        waiters.remove(waiter);
+                    }
+                }
+            });
+            
+            boolean granted;
+            synchronized (this) {
+                granted = inFlight < (int) limit && waiters.isEmpty();
+                if (granted) {
+                    inFlight++;
+                } else {
+                    waiters.addLast(waiter);
+                }
+            }
+            if (granted && waiter.claim()) {
+                sink.success(new Permit());
+            } else if (granted) {
+                // 已被取消，归还刚占用的名额
+                onRelease(Outcome.IGNORE, 0);
+            }
+        })
+        // 许可送达时订阅方恰好取消，许可会被丢弃，此时需要归还
+        .doOnDiscard(Permit.class, permit -> permit.release(Outcome.IGNORE));
+    }
+    
+    private void onRelease(Outcome outcome, long latencyNanos) {
+        List<Waiter> toGrant = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            switch (outcome) {
+                case SUCCESS:
+                    successes.incrementAndGet();
+                    if (latencyNanos <= latencyThresholdNanos) {
+                        // 加性增长：大约每完成limit个健康请求上限+1
+                        limit = Math.min(maxLimit, limit + 1.0 / limit);
+                    } else {
+                        slowResponses.incrementAndGet();
+                    }
+                    break;
+                case OVERLOAD:
+                    overloads.incrementAndGet();
+                    long now = System.nanoTime();
+                    // 乘性收缩：同一批超时只收缩一次
+                    if (now - lastBackoffNanos > latencyThresholdNanos) {
+                        limit = Math.max(minLimit, limit * backoffRatio);
+                        lastBackoffNanos = now;
+                        backoffs.incrementAndGet();
+                    }
+                    break;
+                default:
+                    break;
+            }
+            
+            while (inFlight < (int) limit && !waiters.isEmpty()) {
+                Waiter waiter = waiters.pollFirst();
+                if (waiter.claim()) {
+                    inFlight++;
+                    toGrant.add(waiter);
+                }
+            }
+        }
+        // 在锁外唤醒等待者，避免在持锁时执行下游逻辑
+        for (Waiter waiter : toGrant) {
+            waiter.sink.success(new Permit());
+        }
+    }
+    
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+    
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (this) {
+            stats.put("limit", (int) limit);
+            stats.put("inFlight", inFlight);
+            stats.put("queued", waiters.size());
+        }
+        stats.put("name", name);
+        stats.put("minLimit", minLimit);
+        stats.put("maxLimit", maxLimit);
+        stats.put("successes", successes.get());
+        stats.put("slowResponses", slowResponses.get());
+        stats.put("overloads", overloads.get());
+        stats.put("backoffs", backoffs.get());
+        return stats;
+    }
+    
+    private enum Outcome {
+        SUCCESS,   // 成功完成，按延迟决定是否增长
+        OVERLOAD,  // 超时、限流等过载信号，收缩上限
+        IGNORE     // 与上游负载无关的结束（取消、普通错误），不调整
+    }
+    
+    private static class Waiter {
+        final MonoSink<Permit> sink;
+        final AtomicBoolean claimed = new AtomicBoolean(false);
+        
+        Waiter(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+        
+        // 授予许可和取消只能有一个成功
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+    
+    private class Permit {
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean(false);
+        
+        void release(Outcome outcome) {
+            if (released.compareAndSet(false, true)) {
+                onRelease(outcome, System.nanoTime() - startNanos);
+            }
+        }
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,191 @@
+package com.example.hacker_cnews.util;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * 熔断器
+ * 最近windowSize次调用中失败比例达到阈值后打开，打开期间直接失败（短路）；
+ * 经过openDuration后进入半开状态，放行少量试探调用，全部成功则关闭，任一失败则重新打开
+ */
+public class CircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+    private final Predicate<Throwable> isFailure;
+
+    private State state = State.CLOSED;
+    // 每次状态切换递增，切换前发出的调用结果不再计入
+    private long epoch;
+    private long openedAtNanos;
+
+    // 最近调用结果的环形窗口（true表示失败）
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+
+    private int halfOpenPermitted;
+    private int halfOpenSucceeded;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong shortCircuited = new AtomicLong();
+    private final AtomicLong opened = new AtomicLong();
+
+    public CircuitBreaker(String name, double failureRateThreshold, int windowSize, int minimumCalls,
+            Duration openDuration, int halfOpenCalls, Predicate<Throwable> isFailure) {
+        this.name = name;
+        this.failureRateThreshold = failureRateThreshold;
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, window.length));
+        this.openDurationNanos = openDuration.toNanos();
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.isFailure = isFailure;
+    }
+
+    /**
+     * 熔断器允许时执行调用，否则立即以CircuitBreakerOpenException失败
+     * 不被isFailure判定为失败的异常按成功计入
+     */
+    public <T> Mono<T> run(Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            long callEpoch = tryAcquire();
+            if (callEpoch < 0) {
+                shortCircuited.incrementAndGet();
+                return Mono.error(new CircuitBreakerOpenException(name));
+            }
+            calls.incrementAndGet();
+            return Mono.defer(call)
+                    .doOnSuccess(value -> record(callEpoch, false))
+                    .doOnError(e -> record(callEpoch, isFailure.test(e)))
+                    .doOnCancel(() -> release(callEpoch));
+        });
+    }
+
+    /**
+     * @return 允许调用时返回当前epoch，否则返回-1
+     */
+    private synchronized long tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAtNanos < openDurationNanos) {
+                return -1;
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermitted >= halfOpenCalls) {
+                return -1;
+            }
+            halfOpenPermitted++;
+        }
+        return epoch;
+    }
+
+    private synchronized void record(long callEpoch, boolean failed) {
+        if (failed) {
+            failures.incrementAndGet();
+        }
+        if (callEpoch != epoch) {
+            return;
+        }
+
+        if (state == State.HALF_OPEN) {
+            if (failed) {
+                transition(State.OPEN);
+            } else if (++halfOpenSucceeded >= halfOpenCalls) {
+                transition(State.CLOSED);
+            }
+            return;
+        }
+
+        if (windowCount == window.length) {
+            if (window[windowIndex]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = failed;
+        if (failed) {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+
+        if (windowCount >= minimumCalls && (double) windowFailures / windowCount >= failureRateThreshold) {
+            transition(State.OPEN);
+        }
+    }
+
+    /**
+     * 半开状态下被取消的试探调用归还名额
+     */
+    private synchronized void release(long callEpoch) {
+        if (callEpoch == epoch && state == State.HALF_OPEN) {
+            halfOpenPermitted--;
+        }
+    }
+
+    private void transition(State newState) {
+        logger.warn("熔断器[{}] {} -> {} (窗口内失败 {}/{})", name, state, newState, windowFailures, windowCount);
+        state = newState;
+        epoch++;
+        halfOpenPermitted = 0;
+        halfOpenSucceeded = 0;
+        if (newState == State.OPEN) {
+            openedAtNanos = System.nanoTime();
+            opened.incrementAndGet();
+        } else if (newState == State.CLOSED) {
+            windowIndex = 0;
+            windowCount = 0;
+            windowFailures = 0;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (this) {
+            stats.put("state", state.name());
+            stats.put("windowCalls", windowCount);
+            stats.put("windowFailures", windowFailures);
+        }
+        stats.put("name", name);
+        stats.put("calls", calls.get());
+        stats.put("failures", failures.get());
+        stats.put("shortCircuited", shortCircuited.get());
+        stats.put("opened", opened.get());
+        return stats;
+    }
+
+    /**
+     * 熔断器打开时的快速失败
+     */
+    public static class CircuitBreakerOpenException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public CircuitBreakerOpenException(String name) {
+            super("熔断器[" + name + "]已打开，请求被短路");
+        }
+    }
+}
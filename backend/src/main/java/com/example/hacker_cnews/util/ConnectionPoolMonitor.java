@@ -0,0 +1,112 @@
+package com.example.hacker_cnews.util;
+
+import java.net.SocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * HTTP连接池监控
+ * 通过reactor-netty的MeterRegistrar拿到每个连接池的实时指标（活跃、空闲、等待），
+ * 并自行统计获取连接的耗时，不依赖Micrometer
+ */
+@Component
+public class ConnectionPoolMonitor implements ConnectionProvider.MeterRegistrar {
+    
+    // 连接池名 -> (远端地址 -> 指标)，同一个连接池对每个远端地址维护一个子池
+    private final Map<String, Map<String, ConnectionPoolMetrics>> pools = new ConcurrentHashMap<>();
+    private final Map<String, AcquireTimer> acquireTimers = new ConcurrentHashMap<>();
+    
+    @Override
+    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+        pools.computeIfAbsent(poolName, k -> new ConcurrentHashMap<>()).put(String.valueOf(remoteAddress), metrics);
+    }
+    
+    @Override
+    public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+        Map<String, ConnectionPoolMetrics> subPools = pools.get(poolName);
+        if (subPools != null) {
+            subPools.remove(String.valueOf(remoteAddress));
+        }
+    }
+    
+    /**
+     * 记录一次获取连接的耗时
+     */
+    public void recordAcquireTime(String poolName, long nanos) {
+        acquireTimers.computeIfAbsent(poolName, k -> new AcquireTimer()).record(nanos);
+    }
+    
+    /**
+     * 所有连接池的指标快照
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> result = new HashMap<>();
+        Map<String, Object> byPool = new HashMap<>();
+        for (String poolName : pools.keySet()) {
+            int active = 0;
+            int idle = 0;
+            int allocated = 0;
+            int pending = 0;
+            int maxAllocated = 0;
+            Map<String, Object> remotes = new HashMap<>();
+            for (Map.Entry<String, ConnectionPoolMetrics> entry : pools.get(poolName).entrySet()) {
+                ConnectionPoolMetrics metrics = entry.getValue();
+                active += metrics.acquiredSize();
+                idle += metrics.idleSize();
+                allocated += metrics.allocatedSize();
+                pending += metrics.pendingAcquireSize();
+                maxAllocated += metrics.maxAllocatedSize();
+                remotes.put(entry.getKey(), Map.of(
+                        "active", metrics.acquiredSize(),
+                        "idle", metrics.idleSize(),
+                        "pending", metrics.pendingAcquireSize()));
+            }
+            Map<String, Object> poolStats = new HashMap<>();
+            poolStats.put("active", active);
+            poolStats.put("idle", idle);
+            poolStats.put("allocated", allocated);
+            poolStats.put("pending", pending);
+            poolStats.put("maxConnections", maxAllocated);
+            poolStats.put("remotes", remotes);
+            byPool.put(poolName, poolStats);
+        }
+        for (Map.Entry<String, AcquireTimer> entry : acquireTimers.entrySet()) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> poolStats = (Map<String, Object>) byPool.computeIfAbsent(entry.getKey(), k -> new HashMap<>());
+            poolStats.put("acquireTime", entry.getValue().snapshot());
+        }
+        result.put("pools", byPool);
+        return result;
+    }
+    
+    /**
+     * 获取连接耗时的计数、平均值和最大值
+     */
+    private static class AcquireTimer {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+        
+        void record(long nanos) {
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+        
+        Map<String, Object> snapshot() {
+            long n = count.get();
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("count", n);
+            stats.put("avgMillis", n == 0 ? 0 : Math.round(totalNanos.get() / (double) n / 10_000) / 100.0);
+            stats.put("maxMillis", Math.round(maxNanos.get() / 10_000) / 100.0);
+            return stats;
+        }
+    }
+} 
\ No newline at end of file
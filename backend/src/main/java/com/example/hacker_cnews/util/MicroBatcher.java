@@ -0,0 +1,204 @@
+package com.example.hacker_cnews.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * 微批处理：把短时间内提交的多个请求合并为一次批量调用，再按顺序把结果分发给各自的调用方
+ * 第一个请求进入后等待window，期间累计数量达到maxBatchSize或权重（如字符数）达到maxBatchWeight时立即发出
+ *
+ * 批量调用因某个请求本身的问题失败（由splitOnError判断，如400/413）时对半拆分重试直到单个请求，
+ * 一个有问题的请求不会拖累同批的其他请求；其他失败（如限流、网络错误）直接传给同批的所有调用方，不放大请求量
+ * 批量结果中缺少某一项（null或数量不足）时只有该项失败
+ */
+public class MicroBatcher<T, R> {
+
+    private final String name;
+    private final int maxBatchSize;
+    private final long maxBatchWeight;
+    private final Duration window;
+    private final ToLongFunction<T> weigher;
+    private final Function<List<T>, Mono<List<R>>> batchCall;
+    private final Predicate<Throwable> splitOnError;
+
+    private List<Pending> pending = new ArrayList<>();
+    private long pendingWeight;
+    // 每取走一批递增，过期的窗口定时器据此忽略
+    private long generation;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedItems = new AtomicLong();
+    private final AtomicLong batchFailures = new AtomicLong();
+    private final AtomicLong splits = new AtomicLong();
+    private final AtomicLong itemFailures = new AtomicLong();
+
+    public MicroBatcher(String name, int maxBatchSize, long maxBatchWeight, Duration window,
+            ToLongFunction<T> weigher, Function<List<T>, Mono<List<R>>> batchCall, Predicate<Throwable> splitOnError) {
+        this.name = name;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxBatchWeight = Math.max(1, maxBatchWeight);
+        this.window = window;
+        this.weigher = weigher;
+        this.batchCall = batchCall;
+        this.splitOnError = splitOnError;
+    }
+
+    /**
+     * 提交一个请求，结果在所在批次返回后发出
+     */
+    public Mono<R> submit(T item) {
+        return Mono.create(sink -> {
+            submitted.incrementAndGet();
+            Pending entry = new Pending(item, weigher.applyAsLong(item), sink);
+            sink.onCancel(() -> entry.cancelled = true);
+
+            List<Pending> full = null;
+            List<Pending> overflow = null;
+            long timerGeneration = -1;
+            synchronized (this) {
+                // 加入后会超过权重上限时，先把已有的请求作为一批发出
+                if (!pending.isEmpty() && pendingWeight + entry.weight > maxBatchWeight) {
+                    overflow = takePending();
+                }
+                pending.add(entry);
+                pendingWeight += entry.weight;
+                if (pending.size() >= maxBatchSize || pendingWeight >= maxBatchWeight) {
+                    full = takePending();
+                } else if (pending.size() == 1) {
+                    timerGeneration = generation;
+                }
+            }
+
+            if (overflow != null) {
+                dispatch(overflow);
+            }
+            if (full != null) {
+                dispatch(full);
+            }
+            if (timerGeneration >= 0) {
+                long expected = timerGeneration;
+                Mono.delay(window).subscribe(tick -> flushWindow(expected));
+            }
+        });
+    }
+
+    private void flushWindow(long expectedGeneration) {
+        List<Pending> batch;
+        synchronized (this) {
+            if (generation != expectedGeneration || pending.isEmpty()) {
+                return;
+            }
+            batch = takePending();
+        }
+        dispatch(batch);
+    }
+
+    private List<Pending> takePending() {
+        List<Pending> batch = pending;
+        pending = new ArrayList<>();
+        pendingWeight = 0;
+        generation++;
+        return batch;
+    }
+
+    private void dispatch(List<Pending> batch) {
+        List<Pending> live = new ArrayList<>();
+        for (Pending entry : batch) {
+            if (!entry.cancelled) {
+                live.add(entry);
+            }
+        }
+        if (!live.isEmpty()) {
+            execute(live);
+        }
+    }
+
+    private void execute(List<Pending> batch) {
+        batches.incrementAndGet();
+        batchedItems.addAndGet(batch.size());
+        List<T> items = new ArrayList<>(batch.size());
+        batch.forEach(entry -> items.add(entry.item));
+
+        Mono.defer(() -> batchCall.apply(items))
+                .defaultIfEmpty(new ArrayList<>())
+                .subscribe(
+                    results -> {
+                        for (int i = 0; i < batch.size(); i++) {
+                            R result = i < results.size() ? results.get(i) : null;
+                            if (result != null) {
+                                batch.get(i).sink.success(result);
+                            } else {
+                                itemFailures.incrementAndGet();
+                                batch.get(i).sink.error(new MissingResultException(name, i + 1));
+                            }
+                        }
+                    },
+                    error -> {
+                        batchFailures.incrementAndGet();
+                        if (batch.size() == 1 || !splitOnError.test(error)) {
+                            itemFailures.addAndGet(batch.size());
+                            batch.forEach(entry -> entry.sink.error(error));
+                            return;
+                        }
+                        // 对半拆分重试，把出问题的请求隔离出来
+                        splits.incrementAndGet();
+                        int middle = batch.size() / 2;
+                        execute(new ArrayList<>(batch.subList(0, middle)));
+                        execute(new ArrayList<>(batch.subList(middle, batch.size())));
+                    });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long batchCount = batches.get();
+        stats.put("name", name);
+        stats.put("submitted", submitted.get());
+        stats.put("batches", batchCount);
+        stats.put("avgBatchSize", batchCount > 0 ? Math.round(batchedItems.get() * 100.0 / batchCount) / 100.0 : 0);
+        stats.put("batchFailures", batchFailures.get());
+        stats.put("splits", splits.get());
+        stats.put("itemFailures", itemFailures.get());
+        stats.put("maxBatchSize", maxBatchSize);
+        stats.put("maxBatchWeight", maxBatchWeight);
+        stats.put("windowMs", window.toMillis());
+        synchronized (this) {
+            stats.put("pending", pending.size());
+        }
+        return stats;
+    }
+
+    private class Pending {
+        private final T item;
+        private final long weight;
+        private final MonoSink<R> sink;
+        private volatile boolean cancelled;
+
+        Pending(T item, long weight, MonoSink<R> sink) {
+            this.item = item;
+            this.weight = weight;
+            this.sink = sink;
+        }
+    }
+
+    /**
+     * 批量请求成功，但响应中没有某一项的结果
+     */
+    public static class MissingResultException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public MissingResultException(String name, int position) {
+            super("批量请求[" + name + "]的响应中缺少第" + position + "项结果");
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.hacker_cnews.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * 按优先级分配并发的任务调度器
+ * 总并发由limitSupplier动态给出（通常是上游自适应限制器的当前上限），每个优先级按份额保留一部分并发；
+ * 某一级没有排队任务时，空闲的份额按优先级顺序借给其他级别
+ */
+public class PriorityFetchScheduler {
+
+    public enum Priority {
+        NEW,        // 新出现的条目
+        TOP_RANK,   // 首页靠前的条目
+        REFRESH     // 其余条目的分数/排名刷新
+    }
+
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private final IntSupplier limitSupplier;
+    private final double[] shares;
+
+    private final List<Deque<Task<?>>> queues = new ArrayList<>();
+    private final int[] running = new int[PRIORITIES.length];
+    private int runningTotal;
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private final AtomicLong[] dispatched = new AtomicLong[PRIORITIES.length];
+    private final AtomicLong[] totalWaitNanos = new AtomicLong[PRIORITIES.length];
+
+    /**
+     * @param shares 各优先级的并发份额，按Priority的顺序
+     */
+    public PriorityFetchScheduler(IntSupplier limitSupplier, double... shares) {
+        this.limitSupplier = limitSupplier;
+        this.shares = shares;
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            queues.add(new ArrayDeque<>());
+            dispatched[i] = new AtomicLong();
+            totalWaitNanos[i] = new AtomicLong();
+        }
+    }
+
+    /**
+     * 提交任务，轮到该优先级时才订阅task
+     */
+    public <T> Mono<T> submit(Priority priority, Supplier<Mono<T>> task) {
+        return Mono.create(sink -> {
+            Task<T> entry = new Task<>(priority, task, sink);
+            sink.onDispose(entry::cancel);
+            synchronized (this) {
+                queues.get(priority.ordinal()).addLast(entry);
+            }
+            drain();
+        });
+    }
+
+    /**
+     * 启动可以运行的任务；任务同步完成时会再次调用drain，由wip计数展开为循环，避免递归过深
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            List<Task<?>> toStart = new ArrayList<>();
+            synchronized (this) {
+                int limit = Math.max(1, limitSupplier.getAsInt());
+                while (runningTotal < limit) {
+                    Task<?> next = pollNext(limit);
+                    if (next == null) {
+                        break;
+                    }
+                    running[next.priority.ordinal()]++;
+                    runningTotal++;
+                    toStart.add(next);
+                }
+            }
+            toStart.forEach(Task::start);
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * 先按优先级顺序找未用完自身份额的级别，再按优先级顺序借用空闲份额
+     */
+    private Task<?> pollNext(int limit) {
+        for (Priority priority : PRIORITIES) {
+            int index = priority.ordinal();
+            if (!queues.get(index).isEmpty() && running[index] < Math.round(shares[index] * limit)) {
+                return queues.get(index).pollFirst();
+            }
+        }
+        for (Priority priority : PRIORITIES) {
+            Task<?> task = queues.get(priority.ordinal()).pollFirst();
+            if (task != null) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private void finished(Priority priority) {
+        synchronized (this) {
+            running[priority.ordinal()]--;
+            runningTotal--;
+        }
+        drain();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (this) {
+            stats.put("limit", limitSupplier.getAsInt());
+            stats.put("running", runningTotal);
+            for (Priority priority : PRIORITIES) {
+                int index = priority.ordinal();
+                Map<String, Object> perClass = new HashMap<>();
+                perClass.put("share", shares[index]);
+                perClass.put("queued", queues.get(index).size());
+                perClass.put("running", running[index]);
+                long count = dispatched[index].get();
+                perClass.put("dispatched", count);
+                perClass.put("avgQueueWaitMs", count > 0 ? totalWaitNanos[index].get() / count / 1_000_000 : 0);
+                stats.put(priority.name(), perClass);
+            }
+        }
+        return stats;
+    }
+
+    private class Task<T> {
+        private final Priority priority;
+        private final Supplier<Mono<T>> task;
+        private final MonoSink<T> sink;
+        private final long enqueuedNanos = System.nanoTime();
+        private boolean started;
+        private boolean cancelled;
+        // subscribe()返回前被取消时，swap已处于disposed状态，赋值时立即取消上游请求
+        private final Disposable.Swap subscription = Disposables.swap();
+
+        Task(Priority priority, Supplier<Mono<T>> task, MonoSink<T> sink) {
+            this.priority = priority;
+            this.task = task;
+            this.sink = sink;
+        }
+
+        void start() {
+            synchronized (this) {
+                if (cancelled) {
+                    // 出队和取消同时发生，归还名额
+                    finished(priority);
+                    return;
+                }
+                started = true;
+            }
+            dispatched[priority.ordinal()].incrementAndGet();
+            totalWaitNanos[priority.ordinal()].addAndGet(System.nanoTime() - enqueuedNanos);
+            subscription.update(Mono.defer(task)
+                    .doFinally(signal -> finished(priority))
+                    .subscribe(
+                        value -> sink.success(value),
+                        sink::error,
+                        sink::success));
+        }
+
+        void cancel() {
+            boolean wasStarted;
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                wasStarted = started;
+            }
+            if (!wasStarted) {
+                synchronized (PriorityFetchScheduler.this) {
+                    queues.get(priority.ordinal()).remove(this);
+                }
+            } else {
+                subscription.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.hacker_cnews.util;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * 对冲请求
+ * 请求在最近延迟的指定分位数（如p95）内未返回时，再发出一个相同的请求，取先返回的结果并取消另一个
+ * 对冲请求数量不超过总请求数的maxRatio，避免上游变慢时把负载翻倍
+ */
+public class RequestHedger {
+
+    // 延迟样本不足时使用最大对冲延迟
+    private static final int MIN_SAMPLES = 20;
+    // 每记录多少个样本重新计算一次分位数
+    private static final int RECOMPUTE_EVERY = 32;
+
+    private final String name;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long maxDelayNanos;
+    private final double maxRatio;
+
+    // 最近的单次请求延迟（纳秒）环形缓冲
+    private final long[] samples;
+    private int sampleIndex;
+    private int sampleCount;
+    private long recorded;
+    private volatile long hedgeDelayNanos;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedged = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong hedgesOverBudget = new AtomicLong();
+
+    public RequestHedger(String name, double percentile, Duration minDelay, Duration maxDelay, double maxRatio, int windowSize) {
+        this.name = name;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.maxDelayNanos = Math.max(minDelayNanos, maxDelay.toNanos());
+        this.maxRatio = maxRatio;
+        this.samples = new long[Math.max(MIN_SAMPLES, windowSize)];
+        this.hedgeDelayNanos = maxDelayNanos;
+    }
+
+    /**
+     * 执行请求，超过对冲延迟仍未返回时发出对冲请求
+     * 先发出的请求在对冲前失败时直接传播错误（由调用方决定是否重试）；
+     * 对冲后任一请求返回结果即完成，两者都失败时传播后一个错误
+     */
+    public <T> Mono<T> run(Supplier<Mono<T>> attempt) {
+        return Mono.create(sink -> {
+            requests.incrementAndGet();
+            Race<T> race = new Race<>(sink);
+            Disposable.Composite subscriptions = Disposables.composite();
+            sink.onDispose(subscriptions);
+
+            subscriptions.add(subscribeAttempt(attempt, race, false));
+            // 这里只是提前过滤，预算在计时器到期时才真正占用
+            if (hedged.get() < maxRatio * requests.get()) {
+                subscriptions.add(Mono.delay(Duration.ofNanos(hedgeDelayNanos)).subscribe(tick -> {
+                    if (!tryAcquireHedge()) {
+                        hedgesOverBudget.incrementAndGet();
+                        return;
+                    }
+                    if (race.startHedge()) {
+                        subscriptions.add(subscribeAttempt(attempt, race, true));
+                    } else {
+                        hedged.decrementAndGet();
+                    }
+                }));
+            }
+        });
+    }
+
+    /**
+     * 在预算内占用一次对冲；上游变慢时大量请求的计时器同时到期，检查和计数必须是一个原子操作
+     */
+    private boolean tryAcquireHedge() {
+        while (true) {
+            long current = hedged.get();
+            if (current + 1 > maxRatio * requests.get()) {
+                return false;
+            }
+            if (hedged.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private <T> Disposable subscribeAttempt(Supplier<Mono<T>> attempt, Race<T> race, boolean hedge) {
+        long startNanos = System.nanoTime();
+        return Mono.defer(attempt)
+                .doOnSuccess(value -> record(System.nanoTime() - startNanos))
+                // 被取消的请求至少已经用了这么长时间，作为下界计入，避免分位数只看到快的请求
+                .doOnCancel(() -> record(System.nanoTime() - startNanos))
+                .subscribe(
+                    value -> race.success(value, hedge),
+                    race::error,
+                    () -> race.success(null, hedge));
+    }
+
+    private synchronized void record(long latencyNanos) {
+        samples[sampleIndex] = latencyNanos;
+        sampleIndex = (sampleIndex + 1) % samples.length;
+        if (sampleCount < samples.length) {
+            sampleCount++;
+        }
+        if (++recorded % RECOMPUTE_EVERY == 0 && sampleCount >= MIN_SAMPLES) {
+            long[] sorted = Arrays.copyOf(samples, sampleCount);
+            Arrays.sort(sorted);
+            long value = sorted[Math.min(sampleCount - 1, (int) Math.ceil(percentile * sampleCount) - 1)];
+            hedgeDelayNanos = Math.min(maxDelayNanos, Math.max(minDelayNanos, value));
+        }
+    }
+
+    public Duration getHedgeDelay() {
+        return Duration.ofNanos(hedgeDelayNanos);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("name", name);
+        stats.put("requests", requests.get());
+        stats.put("hedged", hedged.get());
+        stats.put("hedgeWins", hedgeWins.get());
+        stats.put("hedgesOverBudget", hedgesOverBudget.get());
+        stats.put("hedgeDelayMs", hedgeDelayNanos / 1_000_000);
+        return stats;
+    }
+
+    /**
+     * 一次请求的竞争状态：哪个请求先返回，以及还有几个请求在进行
+     */
+    private class Race<T> {
+        private final MonoSink<T> sink;
+        private boolean done;
+        private int active = 1;
+
+        Race(MonoSink<T> sink) {
+            this.sink = sink;
+        }
+
+        synchronized boolean startHedge() {
+            if (done) {
+                return false;
+            }
+            active++;
+            return true;
+        }
+
+        void success(T value, boolean hedge) {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+            }
+            if (hedge) {
+                hedgeWins.incrementAndGet();
+            }
+            if (value != null) {
+                sink.success(value);
+            } else {
+                sink.success();
+            }
+        }
+
+        void error(Throwable e) {
+            synchronized (this) {
+                if (done || --active > 0) {
+                    return;
+                }
+                done = true;
+            }
+            sink.error(e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.hacker_cnews.util;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * 请求合并：同一个key的并发调用共享同一个上游请求和结果
+ * 成功的结果在resultTtl内继续复用，失败或不满足retainResult条件的结果完成后立即失效
+ */
+public class SingleFlight<K, V> {
+    
+    private final Map<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+    private final Duration resultTtl;
+    private final Predicate<V> retainResult;
+    
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong upstreamCalls = new AtomicLong();
+    
+    public SingleFlight(Duration resultTtl, Predicate<V> retainResult) {
+        this.resultTtl = resultTtl;
+        this.retainResult = retainResult;
+    }
+    
+    /**
+     * 执行请求，如果同一个key已有进行中（或仍在有效期内）的请求，则直接复用
+     */
+    public Mono<V> execute(K key, Supplier<Mono<V>> loader) {
+        return Mono.defer(() -> {
+            requests.incrementAndGet();
+            return inFlight.computeIfAbsent(key, k -> share(k, loader));
+        });
+    }
+    
+    private Mono<V> share(K key, Supplier<Mono<V>> loader) {
+        upstreamCalls.incrementAndGet();
+        AtomicReference<Mono<V>> self = new AtomicReference<>();
+        Mono<V> shared = Mono.defer(loader)
+                .doOnSuccess(value -> {
+                    if (value != null && retainResult.test(value) && !resultTtl.isZero()) {
+                        Mono.delay(resultTtl).subscribe(t -> inFlight.remove(key, self.get()));
+                    } else {
+                        inFlight.remove(key, self.get());
+                    }
+                })
+                .doOnError(e -> inFlight.remove(key, self.get()))
+                .cache();
+        self.set(shared);
+        return shared;
+    }
+    
+    /**
+     * 使某个key的结果立即失效
+     */
+    public void invalidate(K key) {
+        inFlight.remove(key);
+    }
+    
+    public long getRequests() {
+        return requests.get();
+    }
+    
+    public long getUpstreamCalls() {
+        return upstreamCalls.get();
+    }
+    
+    /**
+     * 被合并（未产生上游请求）的调用次数
+     */
+    public long getCoalesced() {
+        return requests.get() - upstreamCalls.get();
+    }
+    
+    public int getInFlightSize() {
+        return inFlight.size();
+    }
+} 
\ No newline at end of file
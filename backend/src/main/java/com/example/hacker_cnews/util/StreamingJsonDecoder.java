@@ -0,0 +1,97 @@
+package com.example.hacker_cnews.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 基于Jackson非阻塞解析器的JSON解码器
+ * 直接从Netty的DataBuffer读取字节并解析为对象，不生成中间的String，
+ * 每个DataBuffer解析完立即释放
+ */
+public class StreamingJsonDecoder {
+    
+    private final ObjectMapper objectMapper;
+    
+    public StreamingJsonDecoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+    
+    /**
+     * 将响应体解码为指定类型
+     * 响应体为空或为JSON null时返回空Mono
+     */
+    public <T> Mono<T> decode(Flux<DataBuffer> body, Class<T> type) {
+        return Mono.defer(() -> {
+            JsonParser parser;
+            try {
+                parser = objectMapper.getFactory().createNonBlockingByteBufferParser();
+            } catch (IOException e) {
+                return Mono.error(e);
+            }
+            ByteBufferFeeder feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+            TokenBuffer tokens = new TokenBuffer(parser);
+            
+            return body
+                    .doOnNext(buffer -> {
+                        try {
+                            feed(parser, feeder, tokens, buffer);
+                        } finally {
+                            DataBufferUtils.release(buffer);
+                        }
+                    })
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .then(Mono.fromCallable(() -> {
+                        feeder.endOfInput();
+                        drain(parser, tokens);
+                        
+                        JsonToken first = tokens.firstToken();
+                        if (first == null || first == JsonToken.VALUE_NULL) {
+                            return null;
+                        }
+                        try (JsonParser tokenParser = tokens.asParser(objectMapper)) {
+                            return objectMapper.readValue(tokenParser, type);
+                        }
+                    }))
+                    .doFinally(signal -> {
+                        try {
+                            parser.close();
+                        } catch (IOException ignored) {
+                            // 关闭解析器失败不影响结果
+                        }
+                    });
+        });
+    }
+    
+    private void feed(JsonParser parser, ByteBufferFeeder feeder, TokenBuffer tokens, DataBuffer buffer) {
+        try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+            while (iterator.hasNext()) {
+                ByteBuffer byteBuffer = iterator.next();
+                feeder.feedInput(byteBuffer);
+                // 非阻塞解析器要求在喂入下一段数据前消费完当前数据
+                drain(parser, tokens);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private void drain(JsonParser parser, TokenBuffer tokens) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            tokens.copyCurrentEvent(parser);
+        }
+    }
+} 
\ No newline at end of file
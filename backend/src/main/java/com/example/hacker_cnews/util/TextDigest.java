@@ -0,0 +1,48 @@
+package com.example.hacker_cnews.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.regex.Pattern;
+
+/**
+ * 文本规范化和摘要，用于把任意长度的原文映射为固定长度的键
+ * 规范化只做不影响翻译结果的处理：去掉首尾空白，连续空白合并为一个空格
+ */
+public final class TextDigest {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private TextDigest() {
+    }
+
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return WHITESPACE.matcher(text.trim()).replaceAll(" ");
+    }
+
+    /**
+     * 规范化后文本的SHA-256摘要（64位十六进制）
+     */
+    public static String of(String text) {
+        return sha256Hex(normalize(text));
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            char[] out = new char[hash.length * 2];
+            for (int i = 0; i < hash.length; i++) {
+                out[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+                out[i * 2 + 1] = HEX[hash[i] & 0xf];
+            }
+            return new String(out);
+        } catch (NoSuchAlgorithmException e) {
+            // 所有JVM实现都必须支持SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
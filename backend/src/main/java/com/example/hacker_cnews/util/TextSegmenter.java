@@ -0,0 +1,150 @@
+package com.example.hacker_cnews.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 把长文本切分为可以独立翻译和缓存的片段，拼接所有片段的原文可以还原输入
+ * 先按段落切分（HN正文用<p>分段，纯文本用空行），超过maxChars的段落再按句子组合成不超过maxChars的片段，
+ * 单个句子仍然过长时在空白处硬切分
+ *
+ * 段落分隔符、首尾空白和<pre>代码块作为不翻译的片段原样保留
+ */
+public final class TextSegmenter {
+
+    private static final Pattern HTML_PARAGRAPH = Pattern.compile("(?i)<p>");
+    private static final Pattern BLANK_LINE = Pattern.compile("\\n\\s*\\n");
+    private static final Pattern SENTENCE_END = Pattern.compile("(?<=[.!?])\\s+");
+
+    private TextSegmenter() {
+    }
+
+    public static List<Segment> split(String text, int maxChars) {
+        List<Segment> segments = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return segments;
+        }
+        Pattern paragraph = text.toLowerCase(Locale.ROOT).contains("<p>") ? HTML_PARAGRAPH : BLANK_LINE;
+        Matcher matcher = paragraph.matcher(text);
+        int start = 0;
+        while (matcher.find()) {
+            addParagraph(segments, text.substring(start, matcher.start()), maxChars);
+            segments.add(new Segment(matcher.group(), false));
+            start = matcher.end();
+        }
+        addParagraph(segments, text.substring(start), maxChars);
+        return segments;
+    }
+
+    /**
+     * 拼接片段，translations与片段一一对应；不翻译的片段使用原文
+     */
+    public static String join(List<Segment> segments, List<String> translations) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < segments.size(); i++) {
+            out.append(segments.get(i).isTranslatable() ? translations.get(i) : segments.get(i).getText());
+        }
+        return out.toString();
+    }
+
+    private static void addParagraph(List<Segment> segments, String paragraph, int maxChars) {
+        if (paragraph.isEmpty()) {
+            return;
+        }
+        // 首尾空白单独保留，翻译结果通常会去掉它们
+        int begin = 0;
+        int end = paragraph.length();
+        while (begin < end && Character.isWhitespace(paragraph.charAt(begin))) {
+            begin++;
+        }
+        while (end > begin && Character.isWhitespace(paragraph.charAt(end - 1))) {
+            end--;
+        }
+        if (begin > 0) {
+            segments.add(new Segment(paragraph.substring(0, begin), false));
+        }
+        String core = paragraph.substring(begin, end);
+        if (!core.isEmpty()) {
+            if (core.regionMatches(true, 0, "<pre>", 0, 5)) {
+                segments.add(new Segment(core, false));
+            } else if (core.length() <= maxChars) {
+                segments.add(new Segment(core, true));
+            } else {
+                addSentences(segments, core, maxChars);
+            }
+        }
+        if (end < paragraph.length()) {
+            segments.add(new Segment(paragraph.substring(end), false));
+        }
+    }
+
+    /**
+     * 把句子依次放入片段，放不下时开始新片段；片段之间的空白作为不翻译的片段
+     */
+    private static void addSentences(List<Segment> segments, String paragraph, int maxChars) {
+        Matcher matcher = SENTENCE_END.matcher(paragraph);
+        int chunkStart = 0;
+        int lastBoundaryStart = -1;
+        int lastBoundaryEnd = -1;
+        while (matcher.find()) {
+            if (matcher.start() - chunkStart > maxChars && lastBoundaryStart > chunkStart) {
+                addChunk(segments, paragraph.substring(chunkStart, lastBoundaryStart), maxChars);
+                segments.add(new Segment(paragraph.substring(lastBoundaryStart, lastBoundaryEnd), false));
+                chunkStart = lastBoundaryEnd;
+            }
+            lastBoundaryStart = matcher.start();
+            lastBoundaryEnd = matcher.end();
+        }
+        if (paragraph.length() - chunkStart > maxChars && lastBoundaryStart > chunkStart) {
+            addChunk(segments, paragraph.substring(chunkStart, lastBoundaryStart), maxChars);
+            segments.add(new Segment(paragraph.substring(lastBoundaryStart, lastBoundaryEnd), false));
+            chunkStart = lastBoundaryEnd;
+        }
+        addChunk(segments, paragraph.substring(chunkStart), maxChars);
+    }
+
+    /**
+     * 单个片段仍然过长（没有句子边界）时在最后一个空白处切开
+     */
+    private static void addChunk(List<Segment> segments, String chunk, int maxChars) {
+        while (chunk.length() > maxChars) {
+            int cut = chunk.lastIndexOf(' ', maxChars);
+            if (cut <= 0) {
+                cut = maxChars;
+            }
+            segments.add(new Segment(chunk.substring(0, cut), true));
+            int next = cut;
+            while (next < chunk.length() && chunk.charAt(next) == ' ') {
+                next++;
+            }
+            if (next > cut) {
+                segments.add(new Segment(chunk.substring(cut, next), false));
+            }
+            chunk = chunk.substring(next);
+        }
+        if (!chunk.isEmpty()) {
+            segments.add(new Segment(chunk, true));
+        }
+    }
+
+    public static final class Segment {
+        private final String text;
+        private final boolean translatable;
+
+        Segment(String text, boolean translatable) {
+            this.text = text;
+            this.translatable = translatable;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public boolean isTranslatable() {
+            return translatable;
+        }
+    }
+}
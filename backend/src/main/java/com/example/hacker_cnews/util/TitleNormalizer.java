@@ -0,0 +1,150 @@
+package com.example.hacker_cnews.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * HN标题规范化，提高翻译缓存命中率
+ * 只翻译和缓存标题主体：Show HN/Ask HN等前缀使用固定的中文译法，
+ * 末尾的(2019)、[pdf]、(YC W25)等标记原样保留，不参与翻译；
+ * 主体统一空白和引号，并去掉末尾多余的句点
+ */
+public final class TitleNormalizer {
+
+    // 前缀的第一个词（小写）到固定中文译法
+    private static final Map<String, String> PREFIXES = Map.of(
+        "show", "Show HN（作品展示）：",
+        "ask", "Ask HN（提问）：",
+        "launch", "Launch HN（产品发布）：",
+        "tell", "Tell HN（分享）：");
+
+    private static final Pattern PREFIX = Pattern.compile("(?i)^\\s*(show|ask|launch|tell)\\s+hn\\s*[:：]\\s*");
+    // 年份或年代、YC批次、方括号中的格式标记
+    private static final Pattern TRAILING_TAG = Pattern.compile(
+            "(?i)\\s*(\\(\\d{4}s?\\)|\\((?:YC\\s+)?[WSFX]\\d{2}\\)|\\[[a-z]{2,10}\\])\\s*$");
+    private static final Pattern YEAR_TAG = Pattern.compile("\\(\\d{4}s?\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern DOUBLE_QUOTES = Pattern.compile("[“”„‟«»]");
+    private static final Pattern SINGLE_QUOTES = Pattern.compile("[‘’‚‛]");
+    // 单个句点结尾（省略号除外）
+    private static final Pattern TRAILING_PERIOD = Pattern.compile("(?<!\\.)\\.$");
+
+    private TitleNormalizer() {
+    }
+
+    public static Title parse(String title) {
+        String rest = title == null ? "" : title;
+
+        String prefixZh = "";
+        Matcher prefix = PREFIX.matcher(rest);
+        if (prefix.find()) {
+            prefixZh = PREFIXES.get(prefix.group(1).toLowerCase(Locale.ROOT));
+            rest = rest.substring(prefix.end());
+        }
+
+        List<String> tags = new ArrayList<>();
+        Matcher tag = TRAILING_TAG.matcher(rest);
+        while (tag.find()) {
+            tags.add(0, canonicalTag(tag.group(1)));
+            rest = rest.substring(0, tag.start());
+            tag = TRAILING_TAG.matcher(rest);
+        }
+
+        String core = WHITESPACE.matcher(rest.trim()).replaceAll(" ");
+        core = DOUBLE_QUOTES.matcher(core).replaceAll("\"");
+        core = SINGLE_QUOTES.matcher(core).replaceAll("'");
+        core = TRAILING_PERIOD.matcher(core).replaceAll("").trim();
+        return new Title(prefixZh, core, tags);
+    }
+
+    /**
+     * 按顺序重放一组标题，比较规范化前后的翻译缓存命中率（从空缓存开始，见过的键视为命中）
+     * 规范化前的键与TextDigest一致（只合并空白），规范化后的键为标题主体
+     */
+    public static Map<String, Object> compareHitRatio(List<String> titles) {
+        Set<String> rawKeys = new HashSet<>();
+        Set<String> coreKeys = new HashSet<>();
+        int rawHits = 0;
+        int coreHits = 0;
+        int prefixed = 0;
+        int tagged = 0;
+        List<String> examples = new ArrayList<>();
+        for (String title : titles) {
+            Title parsed = parse(title);
+            boolean rawHit = !rawKeys.add(TextDigest.normalize(title));
+            boolean coreHit = !coreKeys.add(parsed.getCore());
+            rawHits += rawHit ? 1 : 0;
+            coreHits += coreHit ? 1 : 0;
+            prefixed += parsed.hasPrefix() ? 1 : 0;
+            tagged += parsed.getTags().isEmpty() ? 0 : 1;
+            if (coreHit && !rawHit && examples.size() < 20) {
+                examples.add(title);
+            }
+        }
+        Map<String, Object> stats = new HashMap<>();
+        int total = titles.size();
+        stats.put("titles", total);
+        stats.put("rawDistinct", rawKeys.size());
+        stats.put("normalizedDistinct", coreKeys.size());
+        stats.put("rawHitRatio", total > 0 ? Math.round(rawHits * 10000.0 / total) / 10000.0 : 0);
+        stats.put("normalizedHitRatio", total > 0 ? Math.round(coreHits * 10000.0 / total) / 10000.0 : 0);
+        stats.put("prefixed", prefixed);
+        stats.put("tagged", tagged);
+        stats.put("hitOnlyAfterNormalization", examples);
+        return stats;
+    }
+
+    private static String canonicalTag(String tag) {
+        String compact = WHITESPACE.matcher(tag).replaceAll(" ");
+        if (compact.startsWith("[")) {
+            return compact.toLowerCase(Locale.ROOT);
+        }
+        return YEAR_TAG.matcher(compact).matches() ? compact : compact.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * 拆分后的标题，core是需要翻译和缓存的部分
+     */
+    public static final class Title {
+        private final String prefixZh;
+        private final String core;
+        private final List<String> tags;
+
+        Title(String prefixZh, String core, List<String> tags) {
+            this.prefixZh = prefixZh;
+            this.core = core;
+            this.tags = Collections.unmodifiableList(tags);
+        }
+
+        public String getCore() {
+            return core;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public boolean hasPrefix() {
+            return !prefixZh.isEmpty();
+        }
+
+        /**
+         * 用主体的译文拼出完整的中文标题
+         */
+        public String render(String translatedCore) {
+            StringBuilder out = new StringBuilder(prefixZh).append(translatedCore);
+            for (String tag : tags) {
+                out.append(' ').append(tag);
+            }
+            return out.toString();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.hacker_cnews.util;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * 令牌桶限速
+ * 令牌按固定速率补充，最多积累capacity个；令牌不足时不拒绝请求，而是预约之后的令牌并延迟到那时再放行，
+ * 调用方因此自然排队等待（背压），而不是收到错误
+ */
+public class TokenBucketRateLimiter {
+
+    private final String name;
+    private final double permitsPerSecond;
+    private final double capacity;
+
+    // 可以为负数，表示已被预约的未来令牌
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong delayed = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+
+    public TokenBucketRateLimiter(String name, double permitsPerSecond, double capacity) {
+        this.name = name;
+        this.permitsPerSecond = Math.max(0.001, permitsPerSecond);
+        this.capacity = Math.max(1, capacity);
+        this.tokens = this.capacity;
+    }
+
+    /**
+     * 获取一个令牌，令牌可用时完成
+     */
+    public Mono<Void> acquire() {
+        return Mono.defer(() -> {
+            long waitNanos = reserve();
+            acquired.incrementAndGet();
+            if (waitNanos <= 0) {
+                return Mono.empty();
+            }
+            delayed.incrementAndGet();
+            totalWaitNanos.addAndGet(waitNanos);
+            return Mono.delay(Duration.ofNanos(waitNanos)).then();
+        });
+    }
+
+    /**
+     * 预约一个令牌，返回需要等待的纳秒数
+     */
+    private synchronized long reserve() {
+        refill();
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) (-tokens / permitsPerSecond * 1_000_000_000L);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) / 1_000_000_000.0 * permitsPerSecond);
+        lastRefillNanos = now;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long count = acquired.get();
+        stats.put("name", name);
+        stats.put("permitsPerSecond", permitsPerSecond);
+        stats.put("capacity", capacity);
+        synchronized (this) {
+            refill();
+            stats.put("availableTokens", Math.round(tokens * 100) / 100.0);
+        }
+        stats.put("acquired", count);
+        stats.put("delayed", delayed.get());
+        stats.put("avgWaitMs", count > 0 ? totalWaitNanos.get() / count / 1_000_000 : 0);
+        return stats;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.hacker_cnews.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 缓存值的编码：超过阈值的文本用Deflate（最快级别）压缩，否则原样保存
+ * 第一个字节标记格式，读取时据此选择解码方式；压缩后没有变小时也原样保存
+ */
+public final class ValueCompressor {
+
+    private static final byte RAW = 'r';
+    private static final byte DEFLATE = 'z';
+
+    private ValueCompressor() {
+    }
+
+    public static byte[] encode(String value, int thresholdBytes) {
+        byte[] raw = value.getBytes(StandardCharsets.UTF_8);
+        if (raw.length >= thresholdBytes) {
+            byte[] compressed = deflate(raw);
+            if (compressed.length < raw.length) {
+                return withHeader(DEFLATE, compressed);
+            }
+        }
+        return withHeader(RAW, raw);
+    }
+
+    /**
+     * @return 解码后的文本；无法识别的格式返回null
+     */
+    public static String decode(byte[] encoded) {
+        if (encoded == null || encoded.length == 0) {
+            return null;
+        }
+        byte[] body = Arrays.copyOfRange(encoded, 1, encoded.length);
+        switch (encoded[0]) {
+            case RAW:
+                return new String(body, StandardCharsets.UTF_8);
+            case DEFLATE:
+                return new String(inflate(body), StandardCharsets.UTF_8);
+            default:
+                return null;
+        }
+    }
+
+    public static boolean isCompressed(byte[] encoded) {
+        return encoded != null && encoded.length > 0 && encoded[0] == DEFLATE;
+    }
+
+    private static byte[] withHeader(byte header, byte[] body) {
+        byte[] out = new byte[body.length + 1];
+        out[0] = header;
+        System.arraycopy(body, 0, out, 1, body.length);
+        return out;
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2 + 16);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] input) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(input);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length * 3);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("缓存值解压失败: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+}